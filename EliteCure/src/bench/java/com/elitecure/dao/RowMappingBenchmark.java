@@ -0,0 +1,75 @@
+package com.elitecure.dao;
+
+import com.elitecure.model.Reminder;
+import com.elitecure.util.DatabaseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReminderDAO.mapResultSetToReminder, per row
+ * The rows are read once into a scrollable result set in an in-memory
+ * database, so the benchmark times the mapping and not the query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Delitecure.db.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1")
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+    private static final int ROWS = 1000;
+
+    private final ReminderDAO reminderDAO = new ReminderDAO();
+    private Connection conn;
+    private Statement stmt;
+    private ResultSet rs;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = DatabaseUtil.getConnection();
+        stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        stmt.execute("INSERT INTO users (full_name, email, password_hash) VALUES ('Bench', 'bench@bench.test', 'x')");
+        stmt.execute("INSERT INTO reminders (user_id, medicine_name, dosage, frequency, start_date, end_date, " +
+            "time_of_day, notes, status) " +
+            "SELECT (SELECT id FROM users WHERE email = 'bench@bench.test'), 'Medicine ' || x, '1 tablet', " +
+            "'DAILY', CURRENT_DATE, CASE WHEN MOD(x, 3) = 0 THEN NULL ELSE DATEADD(DAY, 90, CURRENT_DATE) END, " +
+            "DATEADD(MINUTE, MOD(x * 7, 1440), TIME '00:00:00'), 'After food', 'ACTIVE' " +
+            "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        rs = stmt.executeQuery("SELECT * FROM reminders");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        rs.close();
+        stmt.close();
+        conn.close();
+        DatabaseUtil.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRow(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        while (rs.next()) {
+            Reminder reminder = reminderDAO.mapResultSetToReminder(rs);
+            blackhole.consume(reminder);
+        }
+    }
+}
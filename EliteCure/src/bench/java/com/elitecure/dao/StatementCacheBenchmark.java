@@ -0,0 +1,84 @@
+package com.elitecure.dao;
+
+import com.elitecure.util.DatabaseUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hottest DAO reads with the pool's statement cache off (0) and on
+ * Each parameter value runs in its own fork, and the cache size is set before
+ * DatabaseUtil starts, so the pool picks it up as it would from -D at startup.
+ * The database is in memory, so the difference is parse and plan time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Delitecure.db.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+    "-Delitecure.db.slowQueryMillis=60000"})
+@State(Scope.Benchmark)
+public class StatementCacheBenchmark {
+    private static final String EMAIL = "bench@bench.test";
+
+    @Param({"0", "64"})
+    public int statementCacheSize;
+
+    private UserDAO userDAO;
+    private ReminderDAO reminderDAO;
+    private Long userId;
+    private Long reminderId;
+
+    @Setup
+    public void setup() throws SQLException {
+        System.setProperty("elitecure.db.pool.statementCacheSize", Integer.toString(statementCacheSize));
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO users (full_name, email, password_hash) VALUES ('Bench', '" + EMAIL + "', 'x')");
+            stmt.execute("INSERT INTO reminders (user_id, medicine_name, dosage, frequency, start_date, " +
+                "time_of_day, status) " +
+                "SELECT (SELECT id FROM users WHERE email = '" + EMAIL + "'), 'Medicine ' || x, '1 tablet', " +
+                "'DAILY', CURRENT_DATE, DATEADD(HOUR, x, TIME '06:00:00'), 'ACTIVE' FROM SYSTEM_RANGE(1, 5)");
+        }
+        userDAO = new UserDAO();
+        reminderDAO = new ReminderDAO();
+        userId = userDAO.findByEmail(EMAIL).orElseThrow().getId();
+        reminderId = reminderDAO.findByUserId(userId).get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("\n" + DatabaseUtil.getPoolStats());
+        DatabaseUtil.shutdown();
+    }
+
+    @Benchmark
+    public Object findByEmail() throws SQLException {
+        return userDAO.findByEmail(EMAIL);
+    }
+
+    @Benchmark
+    public Object findReminderById() throws SQLException {
+        return reminderDAO.findById(reminderId);
+    }
+
+    @Benchmark
+    public Object findTodayReminders() throws SQLException {
+        return reminderDAO.findTodayReminders(userId);
+    }
+}
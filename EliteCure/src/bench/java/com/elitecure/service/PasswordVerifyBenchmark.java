@@ -0,0 +1,48 @@
+package com.elitecure.service;
+
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt verification at the configured work factor (elitecure.bcrypt.rounds)
+ * hasherVerify goes through PasswordHasher's pool as a login does; checkpw is
+ * the bare BCrypt call, so the difference is the hand-off cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordVerifyBenchmark {
+    private static final String PASSWORD = "Passw0rd!";
+
+    private final PasswordHasher hasher = PasswordHasher.getInstance();
+    private String hash;
+
+    @Setup
+    public void setup() {
+        hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(hasher.getRounds()));
+    }
+
+    @Benchmark
+    public boolean hasherVerify() {
+        return hasher.verify(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean checkpw() {
+        return BCrypt.checkpw(PASSWORD, hash);
+    }
+}
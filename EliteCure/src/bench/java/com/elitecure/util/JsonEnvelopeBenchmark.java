@@ -0,0 +1,64 @@
+package com.elitecure.util;
+
+import com.elitecure.model.Reminder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {"success":true,"data":[...]} envelopes for reminder lists of 10, 100 and 1000
+ * successBuffer is what the controllers send; success returns a String and is
+ * kept for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonEnvelopeBenchmark {
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private List<Reminder> reminders;
+
+    @Setup
+    public void setup() {
+        reminders = new ArrayList<>(size);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < size; i++) {
+            Reminder reminder = new Reminder(
+                (long) i + 1, 7L, "Medicine " + i, "1 tablet", "DAILY",
+                start.plusDays(i % 30), i % 3 == 0 ? null : start.plusDays(90),
+                LocalTime.of(i % 24, (i * 7) % 60), i % 2 == 0 ? "After food" : "",
+                "ACTIVE", LocalDateTime.of(2025, 1, 1, 9, 30));
+            reminders.add(reminder);
+        }
+    }
+
+    @Benchmark
+    public int successBuffer() throws IOException {
+        return JsonResponse.successBuffer(reminders).size();
+    }
+
+    @Benchmark
+    public String successString() {
+        return JsonResponse.success(reminders);
+    }
+}
@@ -0,0 +1,87 @@
+package com.elitecure.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Router matching for the API routes, against the path.matches() chain it replaced
+ * The routes mirror the ones App registers; handlers are no-ops.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteMatchBenchmark {
+    @Param({"GET /api/reminders", "GET /api/reminders/today", "PUT /api/reminders/12345",
+            "POST /api/reminders/12345/taken", "GET /api/nope"})
+    private String request;
+
+    private String method;
+    private String path;
+    private Router router;
+
+    @Setup
+    public void setup() {
+        int space = request.indexOf(' ');
+        method = request.substring(0, space);
+        path = request.substring(space + 1);
+
+        Router.Handler none = (exchange, params) -> { };
+        router = new Router();
+        for (String template : new String[] {"/api/register", "/api/login", "/api/logout",
+                "/api/reminders/batch", "/api/reminders/import"}) {
+            router.add("POST", template, none);
+        }
+        for (String template : new String[] {"/api/reminders", "/api/reminders/today", "/api/reminders/stream",
+                "/api/reminders/export", "/api/adherence"}) {
+            router.add("GET", template, none);
+        }
+        router.add("POST", "/api/reminders", none);
+        router.add("PUT", "/api/reminders/{id:long}", none);
+        router.add("DELETE", "/api/reminders/{id:long}", none);
+        router.add("POST", "/api/reminders/{id:long}/taken", none);
+    }
+
+    @Benchmark
+    public Router.Handler trie() {
+        return router.find(method, path);
+    }
+
+    /**
+     * The if-chain App used before Router, returning which branch matched
+     */
+    @Benchmark
+    public int regexChain() {
+        if ("GET".equals(method) && path.equals("/api/reminders")) {
+            return 1;
+        } else if ("GET".equals(method) && path.equals("/api/reminders/export")) {
+            return 2;
+        } else if ("POST".equals(method) && path.equals("/api/reminders")) {
+            return 3;
+        } else if ("POST".equals(method) && path.equals("/api/reminders/batch")) {
+            return 4;
+        } else if ("POST".equals(method) && path.equals("/api/reminders/import")) {
+            return 5;
+        } else if ("PUT".equals(method) && path.matches("/api/reminders/\\d+")) {
+            return 6;
+        } else if ("DELETE".equals(method) && path.matches("/api/reminders/\\d+")) {
+            return 7;
+        } else if ("POST".equals(method) && path.matches("/api/reminders/\\d+/taken")) {
+            return 8;
+        }
+        return 0;
+    }
+}
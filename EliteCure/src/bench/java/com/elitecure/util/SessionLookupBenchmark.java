@@ -0,0 +1,74 @@
+package com.elitecure.util;
+
+import com.elitecure.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionManager.getUser from 8 threads at once, as every authenticated request does
+ * Lookups slide the session expiry, so hits write as well as read.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SessionLookupBenchmark {
+    private static final int SESSIONS = 10_000;
+
+    private String[] sessionIds;
+    private final String unknownId = UUID.randomUUID().toString();
+
+    @Setup
+    public void setup() {
+        sessionIds = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setFullName("User " + i);
+            user.setEmail("user" + i + "@bench.test");
+            sessionIds[i] = SessionManager.createSession(user);
+        }
+    }
+
+    /**
+     * Each thread walks the sessions from its own random starting point
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            next = ThreadLocalRandom.current().nextInt(SESSIONS);
+        }
+    }
+
+    @Benchmark
+    public User hit(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = i + 1 == SESSIONS ? 0 : i + 1;
+        return SessionManager.getUser(sessionIds[i]);
+    }
+
+    @Benchmark
+    public User miss() {
+        return SessionManager.getUser(unknownId);
+    }
+}
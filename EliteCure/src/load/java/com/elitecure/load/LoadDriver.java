@@ -0,0 +1,538 @@
+package com.elitecure.load;
+
+import com.elitecure.util.GsonUtil;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP load driver that plays a crowd of dashboard users against the app.
+ * Registers and logs in elitecure.load.users users, gives each a few
+ * reminders, then replays what the web client does: poll today's reminders
+ * every 30 seconds with If-None-Match, reload the dashboard, create and edit
+ * reminders and mark doses taken. Every action runs on its own fixed schedule
+ * with a random phase, and latency is measured from when the request was due
+ * rather than when it was sent, so a slow server cannot hide queueing delay.
+ * Prints throughput, p50/p99/p99.9 latency and error rate per route.
+ *
+ * By default the app is started as a separate process on elitecure.load.port
+ * with a fresh embedded H2 database in a temp directory; set elitecure.load.url
+ * to drive an app that is already running instead.
+ *
+ * Run with: mvn -P load verify -Dload.args="-Delitecure.load.users=2000"
+ * or, after mvn -P load compile: java -cp target/classes:... com.elitecure.load.LoadDriver
+ */
+public class LoadDriver {
+    private static final int USERS = Integer.getInteger("elitecure.load.users", 200);
+    private static final int DURATION_SECONDS = Integer.getInteger("elitecure.load.durationSeconds", 60);
+    private static final int REMINDERS_PER_USER = Integer.getInteger("elitecure.load.remindersPerUser", 5);
+    private static final long POLL_SECONDS = Long.getLong("elitecure.load.pollSeconds", 30);
+    private static final long DASHBOARD_SECONDS = Long.getLong("elitecure.load.dashboardSeconds", 300);
+    private static final long WRITE_SECONDS = Long.getLong("elitecure.load.writeSeconds", 600);
+    private static final long TAKEN_SECONDS = Long.getLong("elitecure.load.takenSeconds", 600);
+    // Divides every interval above, to fit hours of traffic into a short run
+    private static final double SPEEDUP = Double.parseDouble(System.getProperty("elitecure.load.speedup", "1"));
+    private static final String TARGET_URL = System.getProperty("elitecure.load.url", "");
+    private static final int APP_PORT = Integer.getInteger("elitecure.load.port", 18080);
+    private static final String APP_JVM_ARGS = System.getProperty("elitecure.load.appJvmArgs", "");
+    private static final int SETUP_THREADS = Integer.getInteger("elitecure.load.setupThreads", 16);
+    private static final String REPORT_FILE = System.getProperty("elitecure.load.reportFile", "");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    // Same page size as dashboard.js
+    private static final int PAGE_SIZE = 200;
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAccumulator maxSendLagNanos = new LongAccumulator(Math::max, 0);
+    private volatile long stopAt;
+
+    private LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "load-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        // The JDK server closes connections idle for 30s, the client would keep them for 20 minutes;
+        // reusing one the server just closed fails where a browser would silently retry
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", "20");
+        }
+        Process app = null;
+        Path dataDir = null;
+        String baseUrl = TARGET_URL;
+        if (baseUrl.isEmpty()) {
+            dataDir = Files.createTempDirectory("elitecure-load");
+            app = startApp(dataDir);
+            baseUrl = "http://localhost:" + APP_PORT;
+        }
+
+        int exitCode;
+        try {
+            LoadDriver driver = new LoadDriver(baseUrl);
+            driver.waitForApp(app);
+            List<User> users = driver.setUpUsers();
+            driver.run(users);
+            exitCode = driver.report();
+        } finally {
+            if (app != null) {
+                stopApp(app);
+                deleteRecursively(dataDir);
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Start the app in its own JVM, so it does not share heap or CPU accounting with the driver
+     */
+    private static Process startApp(Path dataDir) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Delitecure.port=" + APP_PORT);
+        command.add("-Delitecure.db.url=jdbc:h2:" + dataDir.resolve("elitecure").toAbsolutePath());
+        command.add("-Delitecure.shutdownDrainSeconds=2");
+        if (!APP_JVM_ARGS.isBlank()) {
+            command.addAll(Arrays.asList(APP_JVM_ARGS.trim().split("\\s+")));
+        }
+        command.add("com.elitecure.App");
+
+        File log = dataDir.resolve("app.log").toFile();
+        System.out.println("Starting app on port " + APP_PORT + " (log: " + log + ")");
+        return new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(log)
+            .start();
+    }
+
+    private static void stopApp(Process app) throws InterruptedException {
+        // Normal termination runs the app's shutdown hook
+        app.destroy();
+        if (!app.waitFor(30, TimeUnit.SECONDS)) {
+            app.destroyForcibly().waitFor();
+        }
+    }
+
+    private void waitForApp(Process app) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/")).timeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (true) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            if (app != null && !app.isAlive()) {
+                throw new IllegalStateException("App exited with code " + app.exitValue() + " during startup");
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("App at " + baseUrl + " did not start within 60s");
+            }
+            Thread.sleep(250);
+        }
+    }
+
+    /**
+     * Register, log in and create reminders for every user; not part of the measured run
+     */
+    private List<User> setUpUsers() throws Exception {
+        long start = System.nanoTime();
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        ExecutorService setup = Executors.newFixedThreadPool(SETUP_THREADS);
+        try {
+            List<Future<User>> futures = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                String email = "load-" + run + "-" + i + "@load.test";
+                futures.add(setup.submit(() -> setUpUser(email)));
+            }
+            List<User> users = new ArrayList<>();
+            for (Future<User> future : futures) {
+                users.add(future.get());
+            }
+            System.out.println("Set up " + users.size() + " users with " + REMINDERS_PER_USER + " reminders each in "
+                + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) + "s");
+            return users;
+        } finally {
+            setup.shutdown();
+        }
+    }
+
+    private User setUpUser(String email) throws Exception {
+        String password = "Passw0rd!";
+        JsonObject register = new JsonObject();
+        register.addProperty("fullName", "Load User");
+        register.addProperty("email", email);
+        register.addProperty("password", password);
+        register.addProperty("confirmPassword", password);
+        expectOk(send(post("/api/register", register.toString(), null)), "register");
+
+        JsonObject login = new JsonObject();
+        login.addProperty("email", email);
+        login.addProperty("password", password);
+        JsonObject session = expectOk(send(post("/api/login", login.toString(), null)), "login");
+        User user = new User(session.getAsJsonObject("data").get("sessionId").getAsString());
+
+        JsonArray drafts = new JsonArray();
+        for (int i = 0; i < REMINDERS_PER_USER; i++) {
+            drafts.add(reminderJson(i));
+        }
+        JsonObject created = expectOk(send(post("/api/reminders/batch", drafts.toString(), user.token)), "create reminders");
+        for (JsonElement id : created.getAsJsonObject("data").getAsJsonArray("ids")) {
+            user.reminderIds.add(id.getAsLong());
+        }
+        return user;
+    }
+
+    private void run(List<User> users) throws InterruptedException {
+        System.out.println("Running " + users.size() + " users for " + DURATION_SECONDS + "s at speedup " + SPEEDUP);
+        long start = System.nanoTime();
+        stopAt = start + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        for (User user : users) {
+            every(user, POLL_SECONDS, start, this::pollToday);
+            every(user, DASHBOARD_SECONDS, start, this::loadDashboard);
+            every(user, WRITE_SECONDS, start, this::writeReminder);
+            every(user, TAKEN_SECONDS, start, this::markTaken);
+        }
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(stopAt - System.nanoTime()));
+        scheduler.shutdownNow();
+        // Let requests already sent finish so they are counted
+        long deadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Run action for user every intervalSeconds (scaled by SPEEDUP), starting at a random phase
+     */
+    private void every(User user, long intervalSeconds, long start, Action action) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(intervalSeconds) / SPEEDUP);
+        long first = start + ThreadLocalRandom.current().nextLong(interval);
+        scheduleAt(first, () -> fire(user, interval, first, action));
+    }
+
+    private void fire(User user, long interval, long dueAt, Action action) {
+        maxSendLagNanos.accumulate(System.nanoTime() - dueAt);
+        action.run(user, dueAt);
+        long next = dueAt + interval;
+        if (next < stopAt) {
+            scheduleAt(next, () -> fire(user, interval, next, action));
+        }
+    }
+
+    private void scheduleAt(long dueAt, Runnable task) {
+        if (dueAt >= stopAt) {
+            return;
+        }
+        try {
+            scheduler.schedule(task, dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Run is over
+        }
+    }
+
+    private void pollToday(User user, long dueAt) {
+        HttpRequest.Builder request = get("/api/reminders/today", user.token);
+        if (user.todayEtag != null) {
+            request.header("If-None-Match", user.todayEtag);
+        }
+        measure("GET /api/reminders/today", request.build(), dueAt).thenAccept(response -> {
+            response.headers().firstValue("ETag").ifPresent(etag -> user.todayEtag = etag);
+        });
+    }
+
+    /**
+     * A dashboard page load: the reminder list and today's reminders, requested together
+     */
+    private void loadDashboard(User user, long dueAt) {
+        HttpRequest.Builder list = get("/api/reminders?limit=" + PAGE_SIZE, user.token);
+        if (user.listEtag != null) {
+            list.header("If-None-Match", user.listEtag);
+        }
+        measure("GET /api/reminders", list.build(), dueAt).thenAccept(response -> {
+            response.headers().firstValue("ETag").ifPresent(etag -> user.listEtag = etag);
+        });
+        measure("GET /api/reminders/today", get("/api/reminders/today", user.token).build(), dueAt);
+    }
+
+    /**
+     * Alternate between creating a reminder and editing one
+     */
+    private void writeReminder(User user, long dueAt) {
+        int n = user.writes++;
+        if (n % 2 == 0) {
+            measure("POST /api/reminders", post("/api/reminders", reminderJson(n).toString(), user.token), dueAt)
+                .thenAccept(response -> {
+                    if (response.statusCode() == 201) {
+                        JsonObject body = GsonUtil.getGson().fromJson(response.body(), JsonObject.class);
+                        user.reminderIds.add(body.getAsJsonObject("data").get("id").getAsLong());
+                    }
+                });
+        } else {
+            Long id = user.randomReminder();
+            HttpRequest request = builder("/api/reminders/" + id, user.token)
+                .PUT(HttpRequest.BodyPublishers.ofString(reminderJson(n).toString()))
+                .build();
+            measure("PUT /api/reminders/{id}", request, dueAt);
+        }
+    }
+
+    private void markTaken(User user, long dueAt) {
+        String path = "/api/reminders/" + user.randomReminder() + "/taken";
+        measure("POST /api/reminders/{id}/taken", post(path, "", user.token), dueAt);
+    }
+
+    /**
+     * Send asynchronously and record the latency from dueAt under route
+     * 2xx and 304 count as success
+     */
+    private CompletableFuture<HttpResponse<String>> measure(String route, HttpRequest request, long dueAt) {
+        Route stats = routes.computeIfAbsent(route, Route::new);
+        inFlight.incrementAndGet();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .whenComplete((response, error) -> {
+                inFlight.decrementAndGet();
+                long latency = System.nanoTime() - dueAt;
+                String failure = null;
+                if (error != null) {
+                    failure = error.getCause() != null ? error.getCause().getClass().getSimpleName()
+                        : error.getClass().getSimpleName();
+                } else if (response.statusCode() / 100 != 2 && response.statusCode() != 304) {
+                    failure = "HTTP " + response.statusCode();
+                }
+                stats.record(latency, failure);
+            });
+    }
+
+    private HttpRequest.Builder builder(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest.Builder get(String path, String token) {
+        return builder(path, token).GET();
+    }
+
+    private HttpRequest post(String path, String body, String token) {
+        return builder(path, token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private static JsonObject expectOk(HttpResponse<String> response, String what) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(what + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return GsonUtil.getGson().fromJson(response.body(), JsonObject.class);
+    }
+
+    private static JsonObject reminderJson(int n) {
+        JsonObject reminder = new JsonObject();
+        reminder.addProperty("medicineName", "Load medicine " + n);
+        reminder.addProperty("dosage", (1 + n % 3) + " tablet");
+        reminder.addProperty("frequency", "DAILY");
+        reminder.addProperty("startDate", LocalDate.now().minusDays(n % 30).toString());
+        reminder.addProperty("timeOfDay", String.format("%02d:%02d", 6 + n % 16, (n * 15) % 60));
+        reminder.addProperty("notes", "After food");
+        return reminder;
+    }
+
+    /**
+     * Print the per-route table (and write the JSON report if configured);
+     * returns the exit code, 1 if any request failed
+     */
+    private int report() throws IOException {
+        List<Route.Summary> summaries = new ArrayList<>();
+        routes.values().stream()
+            .sorted(Comparator.comparing(route -> route.name))
+            .forEach(route -> summaries.add(route.summarize(DURATION_SECONDS)));
+
+        System.out.println();
+        System.out.printf("%-34s %8s %8s %9s %9s %9s %9s %7s%n",
+            "Route", "Count", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "Max ms", "Errors");
+        long total = 0;
+        long errors = 0;
+        for (Route.Summary summary : summaries) {
+            System.out.printf("%-34s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %6.2f%%%n",
+                summary.route, summary.count, summary.requestsPerSecond, summary.p50Millis, summary.p99Millis,
+                summary.p999Millis, summary.maxMillis, summary.errorPercent);
+            summary.errorCauses.forEach((cause, n) -> System.out.printf("    %-30s %8d%n", cause, n));
+            total += summary.count;
+            errors += summary.errors;
+        }
+        System.out.printf("%nTotal %d requests (%.1f/s), %d errors%n", total, total / (double) DURATION_SECONDS, errors);
+
+        long lagMillis = TimeUnit.NANOSECONDS.toMillis(maxSendLagNanos.get());
+        if (lagMillis > 100) {
+            System.out.println("Warning: requests went out up to " + lagMillis
+                + " ms late; the driver itself is overloaded and latencies are inflated");
+        }
+        if (!REPORT_FILE.isEmpty()) {
+            Files.writeString(Paths.get(REPORT_FILE), GsonUtil.getGson().toJson(summaries));
+            System.out.println("Report written to " + REPORT_FILE);
+        }
+        return errors > 0 ? 1 : 0;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private interface Action {
+        void run(User user, long dueAt);
+    }
+
+    /**
+     * One synthetic user; each user's actions run on the scheduler threads, one at a time
+     */
+    private static final class User {
+        private final String token;
+        private final List<Long> reminderIds = new CopyOnWriteArrayList<>();
+        private volatile String todayEtag;
+        private volatile String listEtag;
+        private int writes;
+
+        private User(String token) {
+            this.token = token;
+        }
+
+        private Long randomReminder() {
+            return reminderIds.get(ThreadLocalRandom.current().nextInt(reminderIds.size()));
+        }
+    }
+
+    /**
+     * Latencies and errors for one route
+     * Every latency is kept, so percentiles are exact; a run of a million requests needs 8 MB.
+     */
+    private static final class Route {
+        private final String name;
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        private Route(String name) {
+            this.name = name;
+        }
+
+        /**
+         * failure is null for a success, otherwise the status or exception that caused it
+         */
+        private void record(long latencyNanos, String failure) {
+            if (failure != null) {
+                errors.computeIfAbsent(failure, f -> new LongAdder()).increment();
+            }
+            synchronized (this) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latencyNanos;
+            }
+        }
+
+        private synchronized Summary summarize(int seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            Map<String, Long> causes = new TreeMap<>();
+            errors.forEach((cause, n) -> causes.put(cause, n.sum()));
+            return new Summary(name, count, causes, count / (double) seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                count == 0 ? 0 : sorted[count - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+
+        /**
+         * One row of the report
+         */
+        private static final class Summary {
+            private final String route;
+            private final long count;
+            private final long errors;
+            private final Map<String, Long> errorCauses;
+            private final double errorPercent;
+            private final double requestsPerSecond;
+            private final double p50Millis;
+            private final double p99Millis;
+            private final double p999Millis;
+            private final double maxMillis;
+
+            private Summary(String route, long count, Map<String, Long> errorCauses, double requestsPerSecond,
+                            double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+                this.route = route;
+                this.count = count;
+                this.errors = errorCauses.values().stream().mapToLong(Long::longValue).sum();
+                this.errorCauses = errorCauses;
+                this.errorPercent = count == 0 ? 0 : errors * 100.0 / count;
+                this.requestsPerSecond = requestsPerSecond;
+                this.p50Millis = p50Millis;
+                this.p99Millis = p99Millis;
+                this.p999Millis = p999Millis;
+                this.maxMillis = maxMillis;
+            }
+        }
+    }
+}
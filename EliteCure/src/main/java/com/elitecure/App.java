@@ -1,23 +1,43 @@
 package com.elitecure;
 
 import com.elitecure.controller.AuthController;
+import com.elitecure.controller.MetricsController;
 import com.elitecure.controller.ReminderController;
+import com.elitecure.controller.ReminderStreamController;
+import com.elitecure.controller.StaticController;
+import com.elitecure.service.AdherenceRollup;
+import com.elitecure.service.DoseEventWriter;
+import com.elitecure.service.PasswordHasher;
+import com.elitecure.service.ReminderEventService;
+import com.elitecure.service.ReminderScheduler;
+import com.elitecure.util.DatabaseUtil;
+import com.elitecure.util.HttpExecutors;
+import com.elitecure.util.Metrics;
+import com.elitecure.util.Router;
+import com.elitecure.util.SessionManager;
+import com.elitecure.util.StaticAssetCache;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetSocketAddress;
-import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Main application class
  * Starts the HTTP server and configures routes
  */
 public class App {
-    private static final int PORT = 8080;
+    private static final int PORT = Integer.getInteger("elitecure.port", 8080);
     private static final String FRONTEND_DIR = "src/main/webapp";
+    // Dev mode reloads frontend files when they change on disk
+    private static final boolean DEV_MODE = Boolean.getBoolean("elitecure.dev");
+    // Seconds to let in-flight requests finish on shutdown
+    private static final int SHUTDOWN_DRAIN_SECONDS = Integer.getInteger("elitecure.shutdownDrainSeconds", 10);
+    // Serve /api/metrics for Prometheus (see MetricsController for who may scrape it)
+    private static final boolean METRICS_ENABLED = Boolean.getBoolean("elitecure.metrics.enabled");
 
     public static void main(String[] args) {
         try {
@@ -26,66 +46,61 @@ public class App {
             // Initialize controllers
             AuthController authController = new AuthController();
             ReminderController reminderController = new ReminderController();
+            ReminderStreamController streamController = new ReminderStreamController();
+            MetricsController metricsController = new MetricsController();
             
-            // API Routes
-            server.createContext("/api/register", authController.handleRegister());
-            server.createContext("/api/login", authController.handleLogin());
-            server.createContext("/api/logout", authController.handleLogout());
+            StaticAssetCache assetCache = new StaticAssetCache(Paths.get(FRONTEND_DIR));
+            assetCache.load();
+            if (DEV_MODE) {
+                assetCache.watch();
+            }
+            StaticController staticController = new StaticController(assetCache, DEV_MODE);
             
-            server.createContext("/api/reminders/today", reminderController.handleGetTodayReminders());
-            server.createContext("/api/reminders", exchange -> {
-                String method = exchange.getRequestMethod();
-                String path = exchange.getRequestURI().getPath();
-                
-                if ("OPTIONS".equals(method)) {
-                    handleCORS(exchange);
-                } else if ("GET".equals(method) && path.equals("/api/reminders")) {
-                    reminderController.handleGetReminders().handle(exchange);
-                } else if ("POST".equals(method) && path.equals("/api/reminders")) {
-                    reminderController.handleCreateReminder().handle(exchange);
-                } else if ("PUT".equals(method) && path.matches("/api/reminders/\\d+")) {
-                    reminderController.handleUpdateReminder().handle(exchange);
-                } else if ("DELETE".equals(method) && path.matches("/api/reminders/\\d+")) {
-                    reminderController.handleDeleteReminder().handle(exchange);
-                } else if ("POST".equals(method) && path.matches("/api/reminders/\\d+/taken")) {
-                    reminderController.handleMarkAsTaken().handle(exchange);
-                } else {
-                    exchange.sendResponseHeaders(404, -1);
-                }
-            });
+            // Restore saved sessions (if enabled) and start expiring idle ones
+            SessionManager.start();
             
-            // Static file serving for frontend
-            server.createContext("/", exchange -> {
-                String path = exchange.getRequestURI().getPath();
-                
-                // Default to index.html for root
-                if (path.equals("/")) {
-                    path = "/index.html";
-                }
-                
-                File file = new File(FRONTEND_DIR + path);
-                
-                if (file.exists() && !file.isDirectory()) {
-                    String contentType = getContentType(path);
-                    byte[] fileContent = Files.readAllBytes(file.toPath());
-                    
-                    exchange.getResponseHeaders().set("Content-Type", contentType);
-                    exchange.sendResponseHeaders(200, fileContent.length);
-                    
-                    OutputStream os = exchange.getResponseBody();
-                    os.write(fileContent);
-                    os.close();
-                } else {
-                    String response = "404 Not Found";
-                    exchange.sendResponseHeaders(404, response.length());
-                    OutputStream os = exchange.getResponseBody();
-                    os.write(response.getBytes());
-                    os.close();
-                }
-            });
+            // API Routes, matched by method and path template; each route is timed in Metrics
+            Router api = new Router()
+                .options(App::handleCORS)
+                .post("/api/register", authController.handleRegister())
+                .post("/api/login", authController.handleLogin())
+                .post("/api/logout", authController.handleLogout())
+                .get("/api/reminders", reminderController.handleGetReminders())
+                .post("/api/reminders", reminderController.handleCreateReminder())
+                .get("/api/reminders/today", reminderController.handleGetTodayReminders())
+                .get("/api/reminders/stream", streamController.handleStream())
+                .get("/api/reminders/export", reminderController.handleExportReminders())
+                .post("/api/reminders/batch", reminderController.handleCreateReminders())
+                .post("/api/reminders/import", reminderController.handleImportReminders())
+                .add("PUT", "/api/reminders/{id:long}", reminderController.handleUpdateReminder())
+                .add("DELETE", "/api/reminders/{id:long}", reminderController.handleDeleteReminder())
+                .add("POST", "/api/reminders/{id:long}/taken", reminderController.handleMarkAsTaken())
+                .get("/api/adherence", reminderController.handleGetAdherence());
+            if (METRICS_ENABLED) {
+                api.get("/api/metrics", metricsController.handleMetrics());
+            }
+            server.createContext("/api", api);
             
-            server.setExecutor(null); // Use default executor
+            // Static file serving for frontend, from memory
+            server.createContext("/", Metrics.timed("GET static", staticController.handleStatic()));
+            
+            // Build the in-memory reminder schedule and push due doses to open streams.
+            // Started before the server so no API change can race the initial load.
+            ReminderScheduler.getInstance().addListener(ReminderEventService.getInstance());
+            ReminderScheduler.getInstance().start();
+            
+            // Run handlers off the dispatcher thread (see HttpExecutors for the modes)
+            String executorMode = HttpExecutors.configuredMode();
+            ExecutorService executor = HttpExecutors.create(executorMode);
+            server.setExecutor(executor);
             server.start();
+            System.out.println("HTTP executor mode: " + executorMode);
+            
+            // Close adherence days that ended while the server was down, then each day as it ends
+            AdherenceRollup.getInstance().start();
+            
+            // Drain in-flight requests, then release background threads and pooled connections
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(server, executor), "app-shutdown"));
             
             System.out.println("╔════════════════════════════════════════════════════════╗");
             System.out.println("║                                                        ║");
@@ -101,36 +116,40 @@ public class App {
             System.out.println("║                                                        ║");
             System.out.println("╚════════════════════════════════════════════════════════╝");
             
-        } catch (IOException e) {
+        } catch (IOException | SQLException e) {
             System.err.println("Failed to start server: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Stop accepting connections, let running exchanges finish, then close resources
+     */
+    private static void shutdown(HttpServer server, ExecutorService executor) {
+        System.out.println("Shutting down, draining requests for up to " + SHUTDOWN_DRAIN_SECONDS + "s...");
+        // Event streams never complete on their own, close them before waiting on exchanges
+        ReminderEventService.getInstance().closeAll();
+        server.stop(SHUTDOWN_DRAIN_SECONDS);
+        HttpExecutors.drain(executor, SHUTDOWN_DRAIN_SECONDS);
+        ReminderScheduler.getInstance().shutdown();
+        PasswordHasher.getInstance().shutdown();
+        SessionManager.shutdown();
+        AdherenceRollup.getInstance().shutdown();
+        // Write out queued dose events while the database is still open
+        DoseEventWriter.getInstance().shutdown();
+        DatabaseUtil.shutdown();
+        System.out.println("Shutdown complete");
+    }
+
     /**
      * Handle CORS preflight requests
      */
     private static void handleCORS(HttpExchange exchange) throws IOException {
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
         exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match");
+        // Drain the request so the connection stays open for the request this preflight precedes
+        exchange.getRequestBody().close();
         exchange.sendResponseHeaders(204, -1);
     }
-
-    /**
-     * Get content type based on file extension
-     */
-    private static String getContentType(String path) {
-        if (path.endsWith(".html")) return "text/html";
-        if (path.endsWith(".css")) return "text/css";
-        if (path.endsWith(".js")) return "application/javascript";
-        if (path.endsWith(".json")) return "application/json";
-        if (path.endsWith(".png")) return "image/png";
-        if (path.endsWith(".jpg") || path.endsWith(".jpeg")) return "image/jpeg";
-        if (path.endsWith(".gif")) return "image/gif";
-        if (path.endsWith(".svg")) return "image/svg+xml";
-        if (path.endsWith(".ico")) return "image/x-icon";
-        if (path.endsWith(".mp3")) return "audio/mpeg";
-        return "text/plain";
-    }
 }
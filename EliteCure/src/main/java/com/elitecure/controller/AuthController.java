@@ -1,8 +1,11 @@
 package com.elitecure.controller;
 
 import com.elitecure.model.User;
+import com.elitecure.service.BusyException;
+import com.elitecure.service.ReminderEventService;
 import com.elitecure.service.UserService;
 import com.elitecure.util.JsonResponse;
+import com.elitecure.util.ResponseCompression;
 import com.elitecure.util.SessionManager;
 import com.elitecure.util.GsonUtil;
 import com.google.gson.Gson;
@@ -59,6 +62,8 @@ public class AuthController {
                     
                 } catch (IllegalArgumentException e) {
                     sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage()));
+                } catch (BusyException e) {
+                    sendBusy(exchange, e);
                 } catch (Exception e) {
                     sendJsonResponse(exchange, 500, JsonResponse.error("Registration failed: " + e.getMessage()));
                 }
@@ -97,6 +102,8 @@ public class AuthController {
                     
                 } catch (IllegalArgumentException e) {
                     sendJsonResponse(exchange, 401, JsonResponse.error(e.getMessage()));
+                } catch (BusyException e) {
+                    sendBusy(exchange, e);
                 } catch (Exception e) {
                     sendJsonResponse(exchange, 500, JsonResponse.error("Login failed: " + e.getMessage()));
                 }
@@ -117,6 +124,8 @@ public class AuthController {
                     
                     if (sessionId != null) {
                         SessionManager.invalidateSession(sessionId);
+                        // Event streams opened with this session must stop receiving the user's data
+                        ReminderEventService.getInstance().closeSession(sessionId);
                     }
                     
                     sendJsonResponse(exchange, 200, JsonResponse.success("Logged out successfully"));
@@ -149,6 +158,14 @@ public class AuthController {
         return new String(is.readAllBytes(), StandardCharsets.UTF_8);
     }
 
+    /**
+     * 429 with a short Retry-After when the password hashing queue is full
+     */
+    private void sendBusy(HttpExchange exchange, BusyException e) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendJsonResponse(exchange, 429, JsonResponse.error(e.getMessage()));
+    }
+
     /**
      * Send JSON response
      */
@@ -159,6 +176,12 @@ public class AuthController {
         exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
         
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        String encoding = ResponseCompression.negotiate(exchange, responseBytes.length);
+        if (encoding != null) {
+            responseBytes = ResponseCompression.compress(responseBytes, encoding);
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         
         OutputStream os = exchange.getResponseBody();
@@ -0,0 +1,188 @@
+package com.elitecure.controller;
+
+import com.elitecure.dao.QueryExecutor;
+import com.elitecure.service.DoseEventWriter;
+import com.elitecure.service.PasswordHasher;
+import com.elitecure.service.ReminderEventService;
+import com.elitecure.service.TodayReminderCache;
+import com.elitecure.util.ConnectionPool;
+import com.elitecure.util.DatabaseUtil;
+import com.elitecure.util.JsonResponse;
+import com.elitecure.util.Metrics;
+import com.elitecure.util.ResponseCompression;
+import com.elitecure.util.SessionManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Controller for the Prometheus scrape endpoint
+ * Serves the request, query and serialization series recorded in Metrics,
+ * plus the counters the pool, caches and background services already keep,
+ * read at scrape time. Scrapes must carry elitecure.metrics.token as a Bearer
+ * token, or come from loopback when no token is set.
+ */
+public class MetricsController {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    // Bearer token a scraper must send; when unset, only loopback clients are served
+    private static final byte[] TOKEN =
+        System.getProperty("elitecure.metrics.token", "").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * GET /api/metrics in the Prometheus text exposition format
+     */
+    public HttpHandler handleMetrics() {
+        return exchange -> {
+            int denied = checkAccess(exchange);
+            if (denied != 0) {
+                byte[] error = JsonResponse.error(denied == 401 ? "Unauthorized" : "Forbidden")
+                    .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                if (denied == 401) {
+                    exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                }
+                exchange.sendResponseHeaders(denied, error.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(error);
+                }
+                return;
+            }
+
+            StringWriter out = new StringWriter(16384);
+            Metrics.writePrometheus(out);
+            writeComponentStats(out);
+            writeStatementStats(out);
+            byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            String encoding = ResponseCompression.negotiate(exchange, body.length);
+            if (encoding != null) {
+                body = ResponseCompression.compress(body, encoding);
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        };
+    }
+
+    /**
+     * 0 if the scrape may proceed, else the status to refuse it with
+     */
+    private int checkAccess(HttpExchange exchange) {
+        if (TOKEN.length > 0) {
+            String auth = exchange.getRequestHeaders().getFirst("Authorization");
+            byte[] sent = auth != null && auth.startsWith("Bearer ")
+                ? auth.substring(7).getBytes(StandardCharsets.UTF_8) : new byte[0];
+            return MessageDigest.isEqual(sent, TOKEN) ? 0 : 401;
+        }
+        InetAddress client = exchange.getRemoteAddress().getAddress();
+        return client != null && client.isLoopbackAddress() ? 0 : 403;
+    }
+
+    private void writeComponentStats(Writer out) throws IOException {
+        ConnectionPool.Stats pool = DatabaseUtil.getPoolStats();
+        Metrics.sample(out, "elitecure_db_pool_active_connections", "gauge", "Connections borrowed", pool.getActive());
+        Metrics.sample(out, "elitecure_db_pool_idle_connections", "gauge", "Connections idle in the pool", pool.getIdle());
+        Metrics.sample(out, "elitecure_db_pool_max_connections", "gauge", "Pool size limit", pool.getMaxSize());
+        Metrics.sample(out, "elitecure_db_pool_waiters", "gauge", "Threads waiting for a connection", pool.getWaiters());
+        Metrics.sample(out, "elitecure_db_pool_acquires_total", "counter", "Connections borrowed", pool.getAcquireCount());
+        Metrics.sample(out, "elitecure_db_pool_acquire_timeouts_total", "counter",
+            "Borrows that gave up waiting", pool.getTimeoutCount());
+        Metrics.sample(out, "elitecure_db_pool_acquire_wait_seconds_total", "counter",
+            "Time spent waiting to borrow", pool.getTotalWaitNanos() / 1e9);
+        Metrics.sample(out, "elitecure_db_pool_leaks_total", "counter",
+            "Connections held past the leak threshold", pool.getLeakCount());
+        Metrics.sample(out, "elitecure_db_statement_cache_hits_total", "counter",
+            "prepareStatement calls served from a connection's statement cache", pool.getStatementHits());
+        Metrics.sample(out, "elitecure_db_statement_cache_misses_total", "counter",
+            "prepareStatement calls that prepared a new statement", pool.getStatementMisses());
+        Metrics.sample(out, "elitecure_db_statement_cache_evictions_total", "counter",
+            "Cached statements closed to make room", pool.getStatementEvictions());
+        Metrics.sample(out, "elitecure_db_schema_version", "gauge", "Applied schema migration version",
+            DatabaseUtil.getMigrationResult().getVersion());
+
+        SessionManager.Stats sessions = SessionManager.getStats();
+        Metrics.sample(out, "elitecure_sessions_active", "gauge", "Live sessions", sessions.getActive());
+        Metrics.sample(out, "elitecure_sessions_estimated_bytes", "gauge",
+            "Estimated heap held by sessions", sessions.getEstimatedBytes());
+        Metrics.sample(out, "elitecure_sessions_created_total", "counter", "Sessions created", sessions.getCreated());
+        Metrics.sample(out, "elitecure_sessions_expired_total", "counter", "Sessions expired", sessions.getExpired());
+
+        TodayReminderCache.Stats cache = TodayReminderCache.getInstance().getStats();
+        Metrics.sample(out, "elitecure_today_cache_hits_total", "counter", "Today's reminders cache hits", cache.getHits());
+        Metrics.sample(out, "elitecure_today_cache_misses_total", "counter",
+            "Today's reminders cache misses", cache.getMisses());
+        Metrics.sample(out, "elitecure_today_cache_entries", "gauge", "Users cached", cache.getSize());
+
+        PasswordHasher.Stats hasher = PasswordHasher.getInstance().getStats();
+        Metrics.sample(out, "elitecure_password_hashes_total", "counter", "BCrypt hashes computed", hasher.getHashCount());
+        Metrics.sample(out, "elitecure_password_verifies_total", "counter",
+            "BCrypt verifications", hasher.getVerifyCount());
+        Metrics.sample(out, "elitecure_password_rejected_total", "counter",
+            "Hash requests refused with 429", hasher.getRejectedCount());
+        Metrics.sample(out, "elitecure_password_queue_depth", "gauge", "Hash requests waiting", hasher.getQueueDepth());
+
+        DoseEventWriter.Stats doses = DoseEventWriter.getInstance().getStats();
+        Metrics.sample(out, "elitecure_dose_events_written_total", "counter", "Dose events committed", doses.getWritten());
+        Metrics.sample(out, "elitecure_dose_events_duplicate_total", "counter",
+            "Dose events dropped because the dose was already logged", doses.getDuplicates());
+        Metrics.sample(out, "elitecure_dose_commits_total", "counter", "Dose log group commits", doses.getCommits());
+        Metrics.sample(out, "elitecure_dose_events_failed_total", "counter",
+            "Dose events lost to write errors", doses.getFailed());
+        Metrics.sample(out, "elitecure_dose_write_retries_total", "counter",
+            "Dose log batches retried after a transient error", doses.getRetries());
+        Metrics.sample(out, "elitecure_dose_events_rejected_total", "counter",
+            "Dose events refused with 429", doses.getRejected());
+        Metrics.sample(out, "elitecure_dose_queue_depth", "gauge", "Dose events waiting", doses.getQueueDepth());
+
+        ReminderEventService events = ReminderEventService.getInstance();
+        Metrics.sample(out, "elitecure_event_streams_open", "gauge", "Open reminder event streams",
+            events.getStreamCount());
+        Metrics.sample(out, "elitecure_event_streams_dropped_total", "counter",
+            "Event streams closed because their write queue filled up", events.getDroppedStreamCount());
+        Metrics.sample(out, "elitecure_event_stream_write_timeouts_total", "counter",
+            "Event stream writes interrupted at elitecure.sse.writeTimeoutSeconds", events.getTimedOutWriteCount());
+    }
+
+    /**
+     * QueryExecutor's per-statement aggregates, labelled with the statement's SQL
+     */
+    private void writeStatementStats(Writer out) throws IOException {
+        List<QueryExecutor.StatementStats> statements = QueryExecutor.getStatementStats();
+        writeStatementFamily(out, statements, "elitecure_dao_statement_executions_total", "counter",
+            "DAO statement executions", QueryExecutor.StatementStats::getExecutions);
+        writeStatementFamily(out, statements, "elitecure_dao_statement_errors_total", "counter",
+            "DAO statement executions that failed", QueryExecutor.StatementStats::getErrors);
+        writeStatementFamily(out, statements, "elitecure_dao_statement_slow_total", "counter",
+            "DAO statement executions over elitecure.db.slowQueryMillis", QueryExecutor.StatementStats::getSlowCount);
+        writeStatementFamily(out, statements, "elitecure_dao_statement_rows_total", "counter",
+            "Rows returned or affected", QueryExecutor.StatementStats::getRows);
+        writeStatementFamily(out, statements, "elitecure_dao_statement_seconds_total", "counter",
+            "Time from execute to last row read", s -> s.getTotalNanos() / 1e9);
+        writeStatementFamily(out, statements, "elitecure_dao_statement_max_seconds", "gauge",
+            "Slowest single execution", s -> s.getMaxNanos() / 1e9);
+    }
+
+    private void writeStatementFamily(Writer out, List<QueryExecutor.StatementStats> statements, String name,
+                                      String type, String help, ToDoubleFunction<QueryExecutor.StatementStats> value)
+            throws IOException {
+        Metrics.header(out, name, type, help);
+        for (QueryExecutor.StatementStats statement : statements) {
+            out.write(name + "{statement=\"" + Metrics.escape(statement.getShape()) + "\"} "
+                + Metrics.format(value.applyAsDouble(statement)) + "\n");
+        }
+    }
+}
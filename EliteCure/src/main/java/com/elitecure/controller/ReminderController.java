@@ -1,23 +1,45 @@
 package com.elitecure.controller;
 
+import com.elitecure.dao.ReminderQuery;
+import com.elitecure.model.DoseEvent;
 import com.elitecure.model.Reminder;
+import com.elitecure.model.ReminderPage;
 import com.elitecure.model.User;
+import com.elitecure.service.BusyException;
+import com.elitecure.service.ReminderImport;
 import com.elitecure.service.ReminderService;
 import com.elitecure.util.JsonResponse;
+import com.elitecure.util.RecordReader;
+import com.elitecure.util.ResponseCompression;
+import com.elitecure.util.Router;
 import com.elitecure.util.SessionManager;
 import com.elitecure.util.GsonUtil;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Controller for reminder operations
@@ -27,6 +49,13 @@ public class ReminderController {
     private final ReminderService reminderService;
     private final Gson gson;
 
+    private static final int MAX_IMPORT_RECORD_CHARS = Integer.getInteger("elitecure.import.maxRecordChars", 65536);
+    // Required columns first; see importCsv
+    private static final String[] IMPORT_COLUMNS =
+        {"medicine_name", "dosage", "frequency", "start_date", "time_of_day", "end_date", "notes"};
+    private static final String CSV_HEADER =
+        "id,medicine_name,dosage,frequency,start_date,end_date,time_of_day,notes,status,created_at\r\n";
+
     public ReminderController() {
         this.reminderService = new ReminderService();
         this.gson = GsonUtil.getGson();
@@ -45,12 +74,22 @@ public class ReminderController {
                         return;
                     }
                     
-                    List<Reminder> reminders = reminderService.getUserReminders(user.getId());
+                    String rawQuery = exchange.getRequestURI().getRawQuery();
+                    String etag = reminderService.getRemindersTag(user.getId(), rawQuery);
+                    if (isNotModified(exchange, etag)) {
+                        sendNotModified(exchange, etag);
+                        return;
+                    }
+                    
+                    ReminderPage page = reminderService.getRemindersPage(user.getId(), parseReminderQuery(rawQuery));
                     
-                    // Create success response manually with properly serialized data
-                    String jsonResponse = "{\"success\":true,\"data\":" + gson.toJson(reminders) + "}";
-                    sendJsonResponse(exchange, 200, jsonResponse);
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                    JsonResponse.Buffer buffer = JsonResponse.pageBuffer(page.getReminders(), page.getNextCursor());
+                    sendJsonBytes(exchange, 200, buffer.array(), buffer.size());
                     
+                } catch (IllegalArgumentException e) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage()));
                 } catch (Exception e) {
                     sendJsonResponse(exchange, 500, JsonResponse.error("Error fetching reminders: " + e.getMessage()));
                 }
@@ -60,6 +99,66 @@ public class ReminderController {
         };
     }
 
+    /**
+     * Export all of the logged-in user's reminders as NDJSON or CSV
+     * Rows are written to the response as they come off the database cursor,
+     * using chunked transfer encoding, so nothing is buffered per export.
+     */
+    public HttpHandler handleExportReminders() {
+        return exchange -> {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                User user = getAuthenticatedUser(exchange);
+                if (user == null) {
+                    sendJsonResponse(exchange, 401, JsonResponse.error("Unauthorized"));
+                    return;
+                }
+                
+                String format = queryParam(exchange, "format");
+                if (format == null) {
+                    format = "ndjson";
+                }
+                boolean csv = "csv".equals(format);
+                if (!csv && !"ndjson".equals(format)) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error("format must be ndjson or csv"));
+                    return;
+                }
+                
+                String filename = "reminders-" + LocalDate.now() + (csv ? ".csv" : ".ndjson");
+                exchange.getResponseHeaders().set("Content-Type",
+                    csv ? "text/csv; charset=utf-8" : "application/x-ndjson");
+                exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+                exchange.getResponseHeaders().set("Cache-Control", "no-store");
+                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+                String encoding = ResponseCompression.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                if (encoding != null) {
+                    exchange.getResponseHeaders().set("Content-Encoding", encoding);
+                }
+                // Length 0 = chunked; from here on errors can only cut the stream short
+                exchange.sendResponseHeaders(200, 0);
+                
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                        ResponseCompression.wrap(exchange.getResponseBody(), encoding), StandardCharsets.UTF_8), 16384)) {
+                    if (csv) {
+                        out.write(CSV_HEADER);
+                        reminderService.exportReminders(user.getId(), reminder -> writeCsvRow(out, reminder));
+                    } else {
+                        reminderService.exportReminders(user.getId(), reminder -> {
+                            gson.toJson(reminder, Reminder.class, out);
+                            out.write('\n');
+                        });
+                    }
+                } catch (Exception e) {
+                    System.err.println("Reminder export aborted for user " + user.getId() + ": " + e.getMessage());
+                } finally {
+                    exchange.close();
+                }
+            } else {
+                sendJsonResponse(exchange, 405, JsonResponse.error("Method not allowed"));
+            }
+        };
+    }
+
     /**
      * Get today's reminders for the logged-in user
      */
@@ -73,11 +172,17 @@ public class ReminderController {
                         return;
                     }
                     
+                    String etag = reminderService.getTodayRemindersTag(user.getId());
+                    if (isNotModified(exchange, etag)) {
+                        sendNotModified(exchange, etag);
+                        return;
+                    }
+                    
                     List<Reminder> reminders = reminderService.getTodayReminders(user.getId());
                     
-                    // Create success response manually with properly serialized data
-                    String jsonResponse = "{\"success\":true,\"data\":" + gson.toJson(reminders) + "}";
-                    sendJsonResponse(exchange, 200, jsonResponse);
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                    sendJsonData(exchange, 200, reminders);
                     
                 } catch (Exception e) {
                     sendJsonResponse(exchange, 500, JsonResponse.error("Error fetching today's reminders: " + e.getMessage()));
@@ -118,7 +223,7 @@ public class ReminderController {
                         startDate, endDate, timeOfDay, notes
                     );
                     
-                    sendJsonResponse(exchange, 201, JsonResponse.success(reminder));
+                    sendJsonData(exchange, 201, reminder);
                     
                 } catch (IllegalArgumentException e) {
                     sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage()));
@@ -132,10 +237,134 @@ public class ReminderController {
     }
 
     /**
-     * Update an existing reminder
+     * Create several reminders at once
+     * Body: a JSON array of reminders (or {"reminders": [...]}) in the same shape as a single create.
+     * All items are written in one transaction, or none if any item is invalid.
+     */
+    public HttpHandler handleCreateReminders() {
+        return exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try {
+                    User user = getAuthenticatedUser(exchange);
+                    if (user == null) {
+                        sendJsonResponse(exchange, 401, JsonResponse.error("Unauthorized"));
+                        return;
+                    }
+                    
+                    String requestBody = readRequestBody(exchange);
+                    JsonElement json = gson.fromJson(requestBody, JsonElement.class);
+                    JsonArray items = null;
+                    if (json != null && json.isJsonArray()) {
+                        items = json.getAsJsonArray();
+                    } else if (json != null && json.isJsonObject() && json.getAsJsonObject().has("reminders")
+                            && json.getAsJsonObject().get("reminders").isJsonArray()) {
+                        items = json.getAsJsonObject().getAsJsonArray("reminders");
+                    }
+                    if (items == null) {
+                        throw new IllegalArgumentException("Expected a JSON array of reminders");
+                    }
+                    
+                    // Parse problems and rule violations are reported together, by index
+                    List<Reminder> drafts = new ArrayList<>(items.size());
+                    Map<Integer, String> errors = new TreeMap<>();
+                    for (int i = 0; i < items.size(); i++) {
+                        try {
+                            drafts.add(parseReminderDraft(items.get(i)));
+                        } catch (IllegalArgumentException e) {
+                            drafts.add(null);
+                            errors.put(i, e.getMessage());
+                        }
+                    }
+                    errors.putAll(reminderService.validateReminders(drafts));
+                    if (!errors.isEmpty()) {
+                        throw new ReminderService.BatchValidationException(errors);
+                    }
+                    
+                    List<Long> ids = reminderService.createReminders(user.getId(), drafts);
+                    
+                    JsonObject data = new JsonObject();
+                    JsonArray idArray = new JsonArray();
+                    ids.forEach(idArray::add);
+                    data.add("ids", idArray);
+                    sendJsonData(exchange, 201, data);
+                    
+                } catch (ReminderService.BatchValidationException e) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage(), e.getErrors()));
+                } catch (IllegalArgumentException | JsonParseException e) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage()));
+                } catch (Exception e) {
+                    sendJsonResponse(exchange, 500, JsonResponse.error("Error creating reminders: " + e.getMessage()));
+                }
+            } else {
+                sendJsonResponse(exchange, 405, JsonResponse.error("Method not allowed"));
+            }
+        };
+    }
+
+    /**
+     * Bulk import reminders from an NDJSON or CSV upload
+     * The body is parsed one record at a time and handed to a ReminderImport,
+     * which validates, batches and periodically commits; the response is a
+     * summary with per-row errors. CSV needs a header row; column names match
+     * the export (medicine_name, dosage, frequency, start_date, end_date,
+     * time_of_day, notes) and other columns are ignored.
      */
-    public HttpHandler handleUpdateReminder() {
+    public HttpHandler handleImportReminders() {
         return exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                User user = getAuthenticatedUser(exchange);
+                if (user == null) {
+                    sendJsonResponse(exchange, 401, JsonResponse.error("Unauthorized"));
+                    return;
+                }
+                
+                String format = queryParam(exchange, "format");
+                if (format == null) {
+                    String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                    format = contentType != null && contentType.contains("csv") ? "csv" : "ndjson";
+                }
+                if (!"csv".equals(format) && !"ndjson".equals(format)) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error("format must be ndjson or csv"));
+                    return;
+                }
+                
+                RecordReader reader = new RecordReader(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), MAX_IMPORT_RECORD_CHARS);
+                ReminderImport importer = null;
+                try {
+                    importer = reminderService.beginImport(user.getId());
+                    if ("csv".equals(format)) {
+                        importCsv(reader, importer);
+                    } else {
+                        importNdjson(reader, importer);
+                    }
+                    sendJsonData(exchange, 200, importer.finish());
+                    
+                } catch (IllegalArgumentException e) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage() + importedSoFar(importer)));
+                } catch (Exception e) {
+                    sendJsonResponse(exchange, 500,
+                        JsonResponse.error("Error importing reminders: " + e.getMessage() + importedSoFar(importer)));
+                } finally {
+                    if (importer != null) {
+                        try {
+                            importer.close();
+                        } catch (Exception e) {
+                            System.err.println("Error closing reminder import: " + e.getMessage());
+                        }
+                    }
+                }
+            } else {
+                sendJsonResponse(exchange, 405, JsonResponse.error("Method not allowed"));
+            }
+        };
+    }
+
+    /**
+     * Update an existing reminder
+     */
+    public Router.Handler handleUpdateReminder() {
+        return (exchange, params) -> {
             if ("PUT".equals(exchange.getRequestMethod())) {
                 try {
                     User user = getAuthenticatedUser(exchange);
@@ -144,8 +373,7 @@ public class ReminderController {
                         return;
                     }
                     
-                    String path = exchange.getRequestURI().getPath();
-                    Long reminderId = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+                    Long reminderId = params.getLong("id");
                     
                     String requestBody = readRequestBody(exchange);
                     JsonObject jsonRequest = gson.fromJson(requestBody, JsonObject.class);
@@ -185,8 +413,8 @@ public class ReminderController {
     /**
      * Delete a reminder
      */
-    public HttpHandler handleDeleteReminder() {
-        return exchange -> {
+    public Router.Handler handleDeleteReminder() {
+        return (exchange, params) -> {
             if ("DELETE".equals(exchange.getRequestMethod())) {
                 try {
                     User user = getAuthenticatedUser(exchange);
@@ -195,8 +423,7 @@ public class ReminderController {
                         return;
                     }
                     
-                    String path = exchange.getRequestURI().getPath();
-                    Long reminderId = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+                    Long reminderId = params.getLong("id");
                     
                     boolean deleted = reminderService.deleteReminder(reminderId, user.getId());
                     
@@ -220,8 +447,8 @@ public class ReminderController {
     /**
      * Mark reminder as taken
      */
-    public HttpHandler handleMarkAsTaken() {
-        return exchange -> {
+    public Router.Handler handleMarkAsTaken() {
+        return (exchange, params) -> {
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
                     User user = getAuthenticatedUser(exchange);
@@ -230,18 +457,37 @@ public class ReminderController {
                         return;
                     }
                     
-                    String path = exchange.getRequestURI().getPath();
-                    String[] parts = path.split("/");
-                    Long reminderId = Long.parseLong(parts[parts.length - 2]);
+                    Long reminderId = params.getLong("id");
                     
-                    boolean updated = reminderService.markAsTaken(reminderId, user.getId());
-                    
-                    if (updated) {
-                        sendJsonResponse(exchange, 200, JsonResponse.success("Reminder marked as taken"));
-                    } else {
-                        sendJsonResponse(exchange, 404, JsonResponse.error("Reminder not found"));
+                    // Optional body: {"action": "TAKEN" | "SKIPPED", "scheduledAt": "2025-01-01T08:00"}
+                    String action = DoseEvent.TAKEN;
+                    LocalDateTime scheduledAt = null;
+                    String requestBody = readRequestBody(exchange);
+                    if (!requestBody.isBlank()) {
+                        JsonObject json = gson.fromJson(requestBody, JsonObject.class);
+                        if (json.has("action")) {
+                            action = optString(json, "action");
+                        }
+                        String scheduled = optString(json, "scheduledAt");
+                        if (scheduled != null) {
+                            try {
+                                scheduledAt = LocalDateTime.parse(scheduled);
+                            } catch (DateTimeParseException e) {
+                                throw new IllegalArgumentException("Invalid scheduledAt: " + scheduled);
+                            }
+                        }
                     }
                     
+                    DoseEvent event = reminderService.recordDose(reminderId, user.getId(), action, scheduledAt);
+                    
+                    // Accepted: the dose log is written behind, within milliseconds
+                    sendJsonData(exchange, 202, event);
+                    
+                } catch (BusyException e) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendJsonResponse(exchange, 429, JsonResponse.error(e.getMessage()));
+                } catch (IllegalArgumentException | JsonParseException e) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage()));
                 } catch (Exception e) {
                     sendJsonResponse(exchange, 500, JsonResponse.error("Error marking reminder: " + e.getMessage()));
                 }
@@ -251,6 +497,262 @@ public class ReminderController {
         };
     }
 
+    /**
+     * Adherence report for the logged-in user: GET /api/adherence?from=YYYY-MM-DD&to=YYYY-MM-DD
+     */
+    public HttpHandler handleGetAdherence() {
+        return exchange -> {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                try {
+                    User user = getAuthenticatedUser(exchange);
+                    if (user == null) {
+                        sendJsonResponse(exchange, 401, JsonResponse.error("Unauthorized"));
+                        return;
+                    }
+                    
+                    LocalDate from = dateParam(exchange, "from");
+                    LocalDate to = dateParam(exchange, "to");
+                    sendJsonData(exchange, 200, reminderService.getAdherence(user.getId(), from, to));
+                    
+                } catch (IllegalArgumentException e) {
+                    sendJsonResponse(exchange, 400, JsonResponse.error(e.getMessage()));
+                } catch (Exception e) {
+                    sendJsonResponse(exchange, 500, JsonResponse.error("Error building adherence report: " + e.getMessage()));
+                }
+            } else {
+                sendJsonResponse(exchange, 405, JsonResponse.error("Method not allowed"));
+            }
+        };
+    }
+
+    /**
+     * One batch item as an unsaved Reminder; missing fields stay null for validation to report
+     */
+    private Reminder parseReminderDraft(JsonElement element) {
+        if (element == null || !element.isJsonObject()) {
+            throw new IllegalArgumentException("Reminder must be a JSON object");
+        }
+        JsonObject item = element.getAsJsonObject();
+        return newDraft(optString(item, "medicineName"), optString(item, "dosage"), optString(item, "frequency"),
+            optString(item, "startDate"), optString(item, "endDate"), optString(item, "timeOfDay"),
+            optString(item, "notes"));
+    }
+
+    /**
+     * Unvalidated reminder from raw field values; only dates and times are parsed here
+     */
+    private Reminder newDraft(String medicineName, String dosage, String frequency, String startDate,
+                              String endDate, String timeOfDay, String notes) {
+        Reminder draft = new Reminder();
+        draft.setMedicineName(medicineName);
+        draft.setDosage(dosage);
+        draft.setFrequency(frequency);
+        draft.setNotes(notes);
+        try {
+            draft.setStartDate(startDate != null ? LocalDate.parse(startDate) : null);
+            draft.setEndDate(endDate != null && !endDate.isEmpty() ? LocalDate.parse(endDate) : null);
+            draft.setTimeOfDay(timeOfDay != null ? LocalTime.parse(timeOfDay) : null);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date or time: " + e.getParsedString());
+        }
+        return draft;
+    }
+
+    /**
+     * One JSON object per line; blank lines are skipped
+     */
+    private void importNdjson(RecordReader reader, ReminderImport importer) throws Exception {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Reminder draft;
+            try {
+                draft = parseReminderDraft(JsonParser.parseString(line));
+            } catch (JsonParseException e) {
+                importer.reject(reader.getRecordLine(), "Invalid JSON");
+                continue;
+            } catch (IllegalArgumentException e) {
+                importer.reject(reader.getRecordLine(), e.getMessage());
+                continue;
+            }
+            importer.add(reader.getRecordLine(), draft);
+        }
+    }
+
+    /**
+     * Header row first, then one reminder per record; empty records are skipped
+     */
+    private void importCsv(RecordReader reader, ReminderImport importer) throws Exception {
+        List<String> header = reader.readCsvRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV upload is empty");
+        }
+        int[] columns = new int[IMPORT_COLUMNS.length];
+        for (int i = 0; i < IMPORT_COLUMNS.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                String name = header.get(j).trim().toLowerCase().replace("_", "").replace(" ", "");
+                if (name.equals(IMPORT_COLUMNS[i].replace("_", ""))) {
+                    columns[i] = j;
+                }
+            }
+            // notes and end_date may be left out
+            if (columns[i] < 0 && i < 5) {
+                throw new IllegalArgumentException("CSV header is missing the " + IMPORT_COLUMNS[i] + " column");
+            }
+        }
+        
+        List<String> record;
+        while ((record = reader.readCsvRecord()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            Reminder draft;
+            try {
+                draft = newDraft(csvField(record, columns[0]), csvField(record, columns[1]),
+                    csvField(record, columns[2]), csvField(record, columns[3]), csvField(record, columns[5]),
+                    csvField(record, columns[4]), csvField(record, columns[6]));
+            } catch (IllegalArgumentException e) {
+                importer.reject(reader.getRecordLine(), e.getMessage());
+                continue;
+            }
+            importer.add(reader.getRecordLine(), draft);
+        }
+    }
+
+    private String csvField(List<String> record, int column) {
+        if (column < 0 || column >= record.size()) {
+            return null;
+        }
+        String value = record.get(column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private String importedSoFar(ReminderImport importer) {
+        if (importer == null || importer.getImported() == 0) {
+            return "";
+        }
+        return " (" + importer.getImported() + " rows were already imported)";
+    }
+
+    /**
+     * Value of one query-string parameter, or null
+     */
+    private String queryParam(HttpExchange exchange, String name) {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private LocalDate dateParam(HttpExchange exchange, String name) {
+        String value = queryParam(exchange, name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid value for '" + name + "': " + value);
+        }
+    }
+
+    private String optString(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * Build a page query from ?limit=&cursor=&status=&from=&to=
+     */
+    private ReminderQuery parseReminderQuery(String rawQuery) {
+        ReminderQuery query = new ReminderQuery();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String param : rawQuery.split("&")) {
+            int eq = param.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String name = param.substring(0, eq);
+            String value = URLDecoder.decode(param.substring(eq + 1), StandardCharsets.UTF_8);
+            if (value.isEmpty()) {
+                continue;
+            }
+            try {
+                switch (name) {
+                    case "limit":
+                        query.setLimit(Integer.parseInt(value));
+                        break;
+                    case "cursor":
+                        query.setCursor(value);
+                        break;
+                    case "status":
+                        query.setStatus(value.toUpperCase());
+                        break;
+                    case "from":
+                        query.setFrom(LocalDate.parse(value));
+                        break;
+                    case "to":
+                        query.setTo(LocalDate.parse(value));
+                        break;
+                    default:
+                        break;
+                }
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for '" + name + "': " + value);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * One CSV record (RFC 4180) for a reminder, in CSV_HEADER column order
+     */
+    private void writeCsvRow(Writer out, Reminder reminder) throws IOException {
+        writeCsvField(out, reminder.getId(), true);
+        writeCsvField(out, reminder.getMedicineName(), true);
+        writeCsvField(out, reminder.getDosage(), true);
+        writeCsvField(out, reminder.getFrequency(), true);
+        writeCsvField(out, reminder.getStartDate(), true);
+        writeCsvField(out, reminder.getEndDate(), true);
+        writeCsvField(out, reminder.getTimeOfDay(), true);
+        writeCsvField(out, reminder.getNotes(), true);
+        writeCsvField(out, reminder.getStatus(), true);
+        writeCsvField(out, reminder.getCreatedAt(), false);
+        out.write("\r\n");
+    }
+
+    private void writeCsvField(Writer out, Object value, boolean separator) throws IOException {
+        if (value != null) {
+            String text = value.toString();
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (quote) {
+                out.write('"');
+                out.write(text.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(text);
+            }
+        }
+        if (separator) {
+            out.write(',');
+        }
+    }
+
     /**
      * Get authenticated user from session
      */
@@ -270,6 +772,43 @@ public class ReminderController {
         return null;
     }
 
+    /**
+     * Check whether the client's If-None-Match header matches the current ETag
+     */
+    private boolean isNotModified(HttpExchange exchange, String etag) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        // Weak comparison: ignore the W/ prefix on both sides
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Send 304 Not Modified with no body
+     */
+    private void sendNotModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag");
+        // With no response body the server never drains the request, and an undrained
+        // request makes it close the connection instead of keeping it alive
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+    }
+
     /**
      * Read request body as string
      */
@@ -282,16 +821,36 @@ public class ReminderController {
      * Send JSON response
      */
     private void sendJsonResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        sendJsonBytes(exchange, statusCode, responseBytes, responseBytes.length);
+    }
+
+    /**
+     * Send {"success":true,"data":...}, serialized in one pass into a reused buffer
+     */
+    private void sendJsonData(HttpExchange exchange, int statusCode, Object data) throws IOException {
+        JsonResponse.Buffer buffer = JsonResponse.successBuffer(data);
+        sendJsonBytes(exchange, statusCode, buffer.array(), buffer.size());
+    }
+
+    private void sendJsonBytes(HttpExchange exchange, int statusCode, byte[] body, int length) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
         exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
-        
-        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
-        
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match");
+        exchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+        String encoding = ResponseCompression.negotiate(exchange, length);
+        if (encoding != null) {
+            body = ResponseCompression.compress(body, 0, length, encoding);
+            length = body.length;
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(statusCode, length);
+
         OutputStream os = exchange.getResponseBody();
-        os.write(responseBytes);
+        os.write(body, 0, length);
         os.close();
     }
 }
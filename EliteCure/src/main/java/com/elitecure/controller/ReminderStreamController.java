@@ -0,0 +1,156 @@
+package com.elitecure.controller;
+
+import com.elitecure.model.ReminderEvent;
+import com.elitecure.model.User;
+import com.elitecure.service.ReminderEventService;
+import com.elitecure.util.JsonResponse;
+import com.elitecure.util.SessionManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Controller for the Server-Sent Events reminder stream
+ * The handler only sets the stream up and returns; events are written later
+ * by ReminderEventService, so an idle stream does not occupy a request thread
+ */
+public class ReminderStreamController {
+    private final ReminderEventService eventService;
+
+    public ReminderStreamController() {
+        this.eventService = ReminderEventService.getInstance();
+    }
+
+    /**
+     * Open an event stream for the logged-in user
+     */
+    public HttpHandler handleStream() {
+        return exchange -> {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendJsonResponse(exchange, 405, JsonResponse.error("Method not allowed"));
+                return;
+            }
+
+            String sessionId = getSessionId(exchange);
+            User user = SessionManager.getUser(sessionId);
+            if (user == null) {
+                sendJsonResponse(exchange, 401, JsonResponse.error("Unauthorized"));
+                return;
+            }
+
+            Long lastEventId = parseLastEventId(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+            EventStream stream = new EventStream(exchange, user.getId(), sessionId);
+            if (!eventService.subscribe(user.getId(), stream, lastEventId)) {
+                exchange.getResponseHeaders().set("Retry-After", "30");
+                sendJsonResponse(exchange, 503, JsonResponse.error("Too many open reminder streams"));
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            try {
+                // Length 0 selects chunked encoding; the exchange stays open after this handler returns
+                exchange.sendResponseHeaders(200, 0);
+            } catch (IOException e) {
+                eventService.unsubscribe(user.getId(), stream);
+                return;
+            }
+            stream.open();
+        };
+    }
+
+    /**
+     * Get the session id from the Authorization header or, for EventSource
+     * clients that cannot set headers, from the token query parameter
+     */
+    private String getSessionId(HttpExchange exchange) {
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        if (auth != null && auth.startsWith("Bearer ")) {
+            return auth.substring(7);
+        }
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("token=")) {
+                    return URLDecoder.decode(param.substring(6), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Long parseLastEventId(String header) {
+        if (header == null || header.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Send JSON response
+     */
+    private void sendJsonResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, responseBytes.length);
+
+        OutputStream os = exchange.getResponseBody();
+        os.write(responseBytes);
+        os.close();
+    }
+
+    /**
+     * One open text/event-stream response
+     * Frames are queued by ReminderEventService and written from its writer pool.
+     */
+    private static final class EventStream extends ReminderEventService.QueuedStream {
+        private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+        // Ask EventSource to wait 5 seconds before reconnecting
+        private static final byte[] PREAMBLE = "retry: 5000\n\n".getBytes(StandardCharsets.UTF_8);
+
+        private final HttpExchange exchange;
+        private final OutputStream out;
+
+        private EventStream(HttpExchange exchange, Long userId, String sessionId) {
+            super(userId, sessionId);
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+            enqueue(PREAMBLE);
+        }
+
+        @Override
+        public boolean deliver(ReminderEvent event) {
+            String frame = "id: " + event.getId() + "\n"
+                + "event: " + event.getType() + "\n"
+                + "data: " + event.getData() + "\n\n";
+            return enqueue(frame.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean heartbeat() {
+            return enqueue(HEARTBEAT);
+        }
+
+        @Override
+        protected void writeFrame(byte[] frame) throws IOException {
+            out.write(frame);
+            out.flush();
+        }
+
+        @Override
+        protected void finish() {
+            exchange.close();
+        }
+    }
+}
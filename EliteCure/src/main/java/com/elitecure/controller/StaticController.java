@@ -0,0 +1,127 @@
+package com.elitecure.controller;
+
+import com.elitecure.util.ResponseCompression;
+import com.elitecure.util.StaticAssetCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Controller for the frontend files
+ * Serves everything from StaticAssetCache, so no request touches the disk.
+ * Clients that accept gzip get the precompressed copy.
+ */
+public class StaticController {
+    private static final byte[] NOT_FOUND = "404 Not Found".getBytes(StandardCharsets.UTF_8);
+
+    private final StaticAssetCache cache;
+    private final boolean devMode;
+
+    public StaticController(StaticAssetCache cache, boolean devMode) {
+        this.cache = cache;
+        this.devMode = devMode;
+    }
+
+    /**
+     * Serve a static file
+     */
+    public HttpHandler handleStatic() {
+        return exchange -> {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+
+            // Default to index.html for root
+            if (path.equals("/")) {
+                path = "/index.html";
+            }
+
+            StaticAssetCache.Asset asset = cache.get(path);
+            if (asset == null) {
+                exchange.sendResponseHeaders(404, NOT_FOUND.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(NOT_FOUND);
+                os.close();
+                return;
+            }
+
+            boolean gzip = asset.getGzipContent() != null
+                && ResponseCompression.GZIP.equals(
+                    ResponseCompression.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+            if (asset.getGzipContent() != null) {
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            }
+            exchange.getResponseHeaders().set("ETag", gzip ? asset.getGzipEtag() : asset.getEtag());
+            exchange.getResponseHeaders().set("Last-Modified", asset.getLastModified());
+            exchange.getResponseHeaders().set("Cache-Control", cacheControl(path));
+
+            if (isNotModified(exchange, asset)) {
+                // Drain the request first, or the server closes the connection after a bodiless response
+                exchange.getRequestBody().close();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", asset.getContentType());
+            byte[] content = asset.getContent();
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", ResponseCompression.GZIP);
+                content = asset.getGzipContent();
+            }
+            if ("HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+                exchange.getRequestBody().close();
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, content.length);
+            OutputStream os = exchange.getResponseBody();
+            os.write(content);
+            os.close();
+        };
+    }
+
+    /**
+     * If-None-Match takes precedence over If-Modified-Since
+     */
+    private boolean isNotModified(HttpExchange exchange, StaticAssetCache.Asset asset) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                // Either variant's tag identifies the same file version
+                if (tag.equals("*") || tag.equals(asset.getEtag()) || tag.equals(asset.getGzipEtag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        return ifModifiedSince != null && asset.isNotModifiedSince(ifModifiedSince);
+    }
+
+    /**
+     * Pages always revalidate; scripts, styles and images may be reused for an hour
+     * (or always revalidate in dev mode so edits show up immediately)
+     */
+    private String cacheControl(String path) {
+        if (devMode || path.endsWith(".html")) {
+            return "no-cache";
+        }
+        return "public, max-age=3600";
+    }
+}
@@ -0,0 +1,172 @@
+package com.elitecure.dao;
+
+import com.elitecure.model.AdherenceDay;
+import com.elitecure.model.DoseEvent;
+import com.elitecure.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for the adherence_daily rollup
+ * Dose events recount taken, late and skipped for their reminder and day.
+ * A dose is marked scheduled when it comes due, and closing a day marks the
+ * reminders that were due on it but not seen by the scheduler.
+ */
+public class AdherenceDAO {
+    // A taken dose is late when marked more than this long after its scheduled time
+    private static final long LATE_MINUTES = Long.getLong("elitecure.adherence.lateMinutes", 60);
+
+    // Primary key range read: (user_id, dose_date, reminder_id)
+    static final String FIND_DAYS_SQL =
+        "SELECT * FROM adherence_daily WHERE user_id = ? AND dose_date >= ? AND dose_date <= ? " +
+        "ORDER BY user_id, dose_date, reminder_id";
+    // Recounts the (reminder, day) from dose_events, which hold at most one
+    // event per dose, so re-running it never counts a dose twice
+    private static final String ADD_EVENTS_SQL =
+        "MERGE INTO adherence_daily a " +
+        "USING (SELECT r.user_id, r.id, r.medicine_name, " +
+        "COUNT(CASE WHEN e.action = 'TAKEN' THEN 1 END) taken, " +
+        "COUNT(CASE WHEN e.action = 'TAKEN' AND e.taken_at > DATEADD(MINUTE, ?, e.scheduled_at) THEN 1 END) late, " +
+        "COUNT(CASE WHEN e.action = 'SKIPPED' THEN 1 END) skipped " +
+        "FROM reminders r JOIN dose_events e ON e.reminder_id = r.id " +
+        "WHERE r.id = ? AND e.scheduled_at >= ? AND e.scheduled_at < ? " +
+        "GROUP BY r.user_id, r.id, r.medicine_name) s " +
+        "ON a.user_id = s.user_id AND a.dose_date = ? AND a.reminder_id = s.id " +
+        "WHEN MATCHED THEN UPDATE SET taken = s.taken, late = s.late, skipped = s.skipped " +
+        "WHEN NOT MATCHED THEN INSERT (user_id, dose_date, reminder_id, medicine_name, taken, late, skipped) " +
+        "VALUES (s.user_id, ?, s.id, s.medicine_name, s.taken, s.late, s.skipped)";
+    private static final String MARK_SCHEDULED_SQL =
+        "MERGE INTO adherence_daily a " +
+        "USING (SELECT user_id, id, medicine_name FROM reminders WHERE id = ?) r " +
+        "ON a.user_id = r.user_id AND a.dose_date = ? AND a.reminder_id = r.id " +
+        "WHEN MATCHED THEN UPDATE SET scheduled = 1 " +
+        "WHEN NOT MATCHED THEN INSERT (user_id, dose_date, reminder_id, medicine_name, scheduled) " +
+        "VALUES (r.user_id, ?, r.id, r.medicine_name, 1)";
+    // Doses the scheduler did not see (it was down): guessed from the reminder as it
+    // is now, active, within its date range and created before its dose time. Never
+    // clears scheduled, so doses already recorded when due stay due.
+    private static final String CLOSE_DAY_SQL =
+        "MERGE INTO adherence_daily a " +
+        "USING (SELECT user_id, id, medicine_name FROM reminders WHERE status = 'ACTIVE' " +
+        "AND start_date <= ? AND (end_date IS NULL OR end_date >= ?) " +
+        "AND created_at <= CAST(? AS TIMESTAMP) + time_of_day) r " +
+        "ON a.user_id = r.user_id AND a.dose_date = ? AND a.reminder_id = r.id " +
+        "WHEN MATCHED THEN UPDATE SET scheduled = 1, medicine_name = r.medicine_name " +
+        "WHEN NOT MATCHED THEN INSERT (user_id, dose_date, reminder_id, medicine_name, scheduled) " +
+        "VALUES (r.user_id, ?, r.id, r.medicine_name, 1)";
+    private static final String CLOSED_THROUGH_SQL =
+        "SELECT closed_through FROM adherence_watermark WHERE id = 1";
+    private static final String MOVE_WATERMARK_SQL =
+        "UPDATE adherence_watermark SET closed_through = ? WHERE id = 1 AND closed_through < ?";
+
+    /**
+     * Bring the rollup rows touched by a batch of dose events up to date, on
+     * the caller's connection so it commits together with the events themselves
+     */
+    void addDoseEvents(Connection conn, List<DoseEvent> events) throws SQLException {
+        // One statement per (reminder, day) however many events the batch has for it
+        Map<String, DoseEvent> touched = new LinkedHashMap<>();
+        for (DoseEvent event : events) {
+            touched.putIfAbsent(event.getReminderId() + "/" + event.getScheduledAt().toLocalDate(), event);
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(ADD_EVENTS_SQL)) {
+            for (DoseEvent event : touched.values()) {
+                LocalDate day = event.getScheduledAt().toLocalDate();
+                Date date = Date.valueOf(day);
+                stmt.setLong(1, LATE_MINUTES);
+                stmt.setLong(2, event.getReminderId());
+                stmt.setTimestamp(3, Timestamp.valueOf(day.atStartOfDay()));
+                stmt.setTimestamp(4, Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+                stmt.setDate(5, date);
+                stmt.setDate(6, date);
+                stmt.addBatch();
+            }
+            QueryExecutor.executeBatch(stmt, ADD_EVENTS_SQL);
+        }
+    }
+
+    /**
+     * Record that a reminder's dose on the day has come due
+     */
+    public void markScheduled(Long reminderId, LocalDate day) throws SQLException {
+        Date date = Date.valueOf(day);
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            QueryExecutor.update(conn, MARK_SCHEDULED_SQL, stmt -> {
+                stmt.setLong(1, reminderId);
+                stmt.setDate(2, date);
+                stmt.setDate(3, date);
+            });
+        }
+    }
+
+    /**
+     * Last day whose scheduled doses are in the rollup
+     */
+    public LocalDate getClosedThrough() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.first(conn, CLOSED_THROUGH_SQL, stmt -> { },
+                    rs -> rs.getDate(1).toLocalDate())
+                .orElseThrow(() -> new SQLException("adherence_watermark has no row"));
+        }
+    }
+
+    /**
+     * Mark every reminder due on the day as scheduled and move the watermark
+     * to it, in one transaction; returns the number of reminders that were due
+     */
+    public int closeDay(LocalDate day) throws SQLException {
+        Date date = Date.valueOf(day);
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int due = QueryExecutor.update(conn, CLOSE_DAY_SQL, stmt -> {
+                    stmt.setDate(1, date);
+                    stmt.setDate(2, date);
+                    stmt.setDate(3, date);
+                    stmt.setDate(4, date);
+                    stmt.setDate(5, date);
+                });
+                QueryExecutor.update(conn, MOVE_WATERMARK_SQL, stmt -> {
+                    stmt.setDate(1, date);
+                    stmt.setDate(2, date);
+                });
+                conn.commit();
+                return due;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * A user's rollup rows for a date range, by day then reminder
+     */
+    public List<AdherenceDay> findDays(Long userId, LocalDate from, LocalDate to) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.list(conn, FIND_DAYS_SQL, stmt -> {
+                stmt.setLong(1, userId);
+                stmt.setDate(2, Date.valueOf(from));
+                stmt.setDate(3, Date.valueOf(to));
+            }, rs -> new AdherenceDay(
+                rs.getLong("reminder_id"),
+                rs.getString("medicine_name"),
+                rs.getDate("dose_date").toLocalDate(),
+                rs.getInt("scheduled"),
+                rs.getInt("taken"),
+                rs.getInt("late"),
+                rs.getInt("skipped")));
+        }
+    }
+}
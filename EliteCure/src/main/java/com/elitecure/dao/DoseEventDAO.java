@@ -0,0 +1,67 @@
+package com.elitecure.dao;
+
+import com.elitecure.model.DoseEvent;
+import com.elitecure.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the dose_events log
+ * The log is append-only: there are no updates or deletes here. It holds at
+ * most one event per dose (reminder_id, scheduled_at); the first one wins.
+ */
+public class DoseEventDAO {
+    // Inserts nothing when the dose is already logged, earlier in this batch included
+    private static final String INSERT_SQL =
+        "INSERT INTO dose_events (reminder_id, user_id, scheduled_at, taken_at, action) " +
+        "SELECT ?, ?, ?, ?, ? WHERE NOT EXISTS " +
+        "(SELECT 1 FROM dose_events WHERE reminder_id = ? AND scheduled_at = ?)";
+
+    private final AdherenceDAO adherenceDAO = new AdherenceDAO();
+
+    /**
+     * Insert events with one JDBC batch in a single transaction, together with
+     * their adherence_daily counts so the rollup never drifts from the log
+     * Events for a dose that is already logged are skipped; returns how many were written.
+     */
+    public int createAll(List<DoseEvent> events) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                for (DoseEvent event : events) {
+                    Timestamp scheduledAt = Timestamp.valueOf(event.getScheduledAt());
+                    stmt.setLong(1, event.getReminderId());
+                    stmt.setLong(2, event.getUserId());
+                    stmt.setTimestamp(3, scheduledAt);
+                    stmt.setTimestamp(4, Timestamp.valueOf(event.getTakenAt()));
+                    stmt.setString(5, event.getAction());
+                    stmt.setLong(6, event.getReminderId());
+                    stmt.setTimestamp(7, scheduledAt);
+                    stmt.addBatch();
+                }
+                int[] counts = QueryExecutor.executeBatch(stmt, INSERT_SQL);
+                List<DoseEvent> inserted = new ArrayList<>(events.size());
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        inserted.add(events.get(i));
+                    }
+                }
+                if (!inserted.isEmpty()) {
+                    adherenceDAO.addDoseEvents(conn, inserted);
+                }
+                conn.commit();
+                return inserted.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.elitecure.dao;
+
+import com.elitecure.util.Metrics;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the DAO statements and keeps per-statement timings
+ * Every execution is added to the aggregates for its SQL shape (the text with
+ * whitespace collapsed): executions, errors, rows, total and max time. Any run
+ * slower than elitecure.db.slowQueryMillis is logged, and at most once per
+ * elitecure.db.slowQueryPlanSeconds per statement the log line also carries
+ * the EXPLAIN plan, prepared on the same connection with the same binder.
+ *
+ * Time runs from execute until the last row has been read, so row mapping is
+ * included. forEach leaves out the time spent in its handler, which may be
+ * writing to a slow client rather than waiting on the database.
+ *
+ * Each execution is also recorded in Metrics' query histogram, so this is the
+ * one place DAO statements are timed.
+ */
+public class QueryExecutor {
+    private static final long SLOW_QUERY_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Long.getLong("elitecure.db.slowQueryMillis", 100));
+    private static final long PLAN_INTERVAL_NANOS =
+        TimeUnit.SECONDS.toNanos(Long.getLong("elitecure.db.slowQueryPlanSeconds", 60));
+    // Shapes beyond this share one entry, in case a caller builds SQL with inline values
+    private static final int MAX_STATEMENTS = 500;
+    private static final String OTHER = "(other statements)";
+
+    private static final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+    private QueryExecutor() {
+    }
+
+    /**
+     * Sets the parameters of a statement
+     * May run twice for one query (again for its EXPLAIN), so it must only bind.
+     */
+    public interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    public interface RowHandler {
+        void handle(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * Every row of a query, mapped
+     */
+    static <T> List<T> list(Connection conn, String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        StatementStats stats = stats(sql);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            long start = System.nanoTime();
+            List<T> rows = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+            } catch (SQLException e) {
+                stats.errors.increment();
+                throw e;
+            }
+            record(conn, sql, binder, stats, System.nanoTime() - start, rows.size());
+            return rows;
+        }
+    }
+
+    /**
+     * The first row of a query, mapped, if there is one
+     */
+    static <T> Optional<T> first(Connection conn, String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        StatementStats stats = stats(sql);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            long start = System.nanoTime();
+            T row = null;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    row = mapper.map(rs);
+                }
+            } catch (SQLException e) {
+                stats.errors.increment();
+                throw e;
+            }
+            record(conn, sql, binder, stats, System.nanoTime() - start, row != null ? 1 : 0);
+            return Optional.ofNullable(row);
+        }
+    }
+
+    /**
+     * Pass every row of a query to handler as it is read, without collecting them
+     */
+    static long forEach(Connection conn, String sql, Binder binder, RowHandler handler)
+            throws SQLException, IOException {
+        StatementStats stats = stats(sql);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            long start = System.nanoTime();
+            long handlerNanos = 0;
+            long rows = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long handlerStart = System.nanoTime();
+                    handler.handle(rs);
+                    handlerNanos += System.nanoTime() - handlerStart;
+                    rows++;
+                }
+            } catch (SQLException | IOException e) {
+                stats.errors.increment();
+                throw e;
+            }
+            record(conn, sql, binder, stats, System.nanoTime() - start - handlerNanos, rows);
+            return rows;
+        }
+    }
+
+    /**
+     * Run an INSERT, UPDATE or DELETE; returns the rows affected
+     */
+    static int update(Connection conn, String sql, Binder binder) throws SQLException {
+        StatementStats stats = stats(sql);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            long start = System.nanoTime();
+            int rows;
+            try {
+                rows = stmt.executeUpdate();
+            } catch (SQLException e) {
+                stats.errors.increment();
+                throw e;
+            }
+            record(conn, sql, binder, stats, System.nanoTime() - start, rows);
+            return rows;
+        }
+    }
+
+    /**
+     * Run a single-row INSERT; returns its generated key, or null if nothing was inserted
+     */
+    static Long insert(Connection conn, String sql, Binder binder) throws SQLException {
+        StatementStats stats = stats(sql);
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            binder.bind(stmt);
+            long start = System.nanoTime();
+            int rows;
+            Long key = null;
+            try {
+                rows = stmt.executeUpdate();
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (rows > 0 && generatedKeys.next()) {
+                        key = generatedKeys.getLong(1);
+                    }
+                }
+            } catch (SQLException e) {
+                stats.errors.increment();
+                throw e;
+            }
+            record(conn, sql, binder, stats, System.nanoTime() - start, rows);
+            return key;
+        }
+    }
+
+    /**
+     * Execute the batch queued on stmt (prepared from sql); returns the update count of each entry
+     * Batches are timed and logged but not explained, since their values cannot be bound again.
+     */
+    static int[] executeBatch(PreparedStatement stmt, String sql) throws SQLException {
+        StatementStats stats = stats(sql);
+        long start = System.nanoTime();
+        int[] counts;
+        try {
+            counts = stmt.executeBatch();
+        } catch (SQLException e) {
+            stats.errors.increment();
+            throw e;
+        }
+        int rows = 0;
+        for (int count : counts) {
+            rows += Math.max(count, 0);
+        }
+        record(null, sql, null, stats, System.nanoTime() - start, rows);
+        return counts;
+    }
+
+    /**
+     * Aggregates for every statement run so far, slowest in total first
+     */
+    public static List<StatementStats> getStatementStats() {
+        List<StatementStats> snapshot = new ArrayList<>(statements.values());
+        snapshot.sort(Comparator.comparingLong(StatementStats::getTotalNanos).reversed());
+        return snapshot;
+    }
+
+    private static StatementStats stats(String sql) {
+        StatementStats stats = statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        if (statements.size() >= MAX_STATEMENTS) {
+            return statements.computeIfAbsent(OTHER, key -> new StatementStats(OTHER, 0));
+        }
+        return statements.computeIfAbsent(sql, key -> new StatementStats(shape(key), countBinds(key)));
+    }
+
+    private static void record(Connection conn, String sql, Binder binder, StatementStats stats,
+                               long nanos, long rows) {
+        Metrics.recordQuery(sql, nanos);
+        stats.executions.increment();
+        stats.rows.add(rows);
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+        if (nanos < SLOW_QUERY_NANOS) {
+            return;
+        }
+        stats.slow.increment();
+
+        StringBuilder message = new StringBuilder("Slow query (")
+            .append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms, ")
+            .append(stats.bindCount).append(" binds, ")
+            .append(rows).append(" rows): ").append(stats.shape);
+        long now = System.nanoTime();
+        long lastPlan = stats.lastPlanAt.get();
+        if (conn != null && (lastPlan == 0 || now - lastPlan >= PLAN_INTERVAL_NANOS)
+                && stats.lastPlanAt.compareAndSet(lastPlan, now)) {
+            message.append(System.lineSeparator()).append("  plan: ").append(explain(conn, sql, binder));
+        }
+        System.err.println(message);
+    }
+
+    private static String explain(Connection conn, String sql, Binder binder) {
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1).replaceAll("\\s+", " ") : "(none)";
+            }
+        } catch (SQLException e) {
+            return "(unavailable: " + e.getMessage() + ")";
+        }
+    }
+
+    static String shape(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Number of ? parameters, ignoring any inside quoted literals
+     */
+    static int countBinds(String sql) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == '?' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Running totals for one statement shape
+     */
+    public static class StatementStats {
+        private final String shape;
+        private final int bindCount;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        // When this statement's plan was last logged, 0 if never
+        private final AtomicLong lastPlanAt = new AtomicLong();
+
+        private StatementStats(String shape, int bindCount) {
+            this.shape = shape;
+            this.bindCount = bindCount;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public int getBindCount() {
+            return bindCount;
+        }
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getSlowCount() {
+            return slow.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public double getAverageMillis() {
+            long count = getExecutions();
+            return count == 0 ? 0 : getTotalNanos() / 1e6 / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("StatementStats{executions=%d, errors=%d, slow=%d, rows=%d, avgMs=%.3f, "
+                    + "maxMs=%.3f, sql=%s}", getExecutions(), getErrors(), getSlowCount(), getRows(),
+                getAverageMillis(), getMaxNanos() / 1e6, shape);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.elitecure.dao;
+
+import com.elitecure.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the query plans of the DAO read queries against a large seeded database
+ * Runs every query through EXPLAIN and fails (exit code 1) when one reads a
+ * whole table or index instead of seeking, or sorts instead of reading rows in
+ * index order. Uses an in-memory database unless elitecure.db.url is set; the
+ * schema comes from the normal migrations.
+ *
+ * Run with: mvn -P plan-check verify
+ * or: java -cp target/classes:... com.elitecure.dao.QueryPlanVerifier
+ */
+public class QueryPlanVerifier {
+    private static final int USERS = Integer.getInteger("elitecure.plancheck.users", 1000);
+    private static final int REMINDERS = Integer.getInteger("elitecure.plancheck.reminders", 200000);
+
+    // First index hint in an H2 plan: "/* PUBLIC.IDX_NAME: COL = ?1 */", or with no condition for a full read
+    private static final Pattern INDEX_HINT = Pattern.compile("/\\* (\\S+?)(:| \\*/)");
+
+    private final List<Check> checks = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("elitecure.db.url") == null) {
+            System.setProperty("elitecure.db.url", "jdbc:h2:mem:plancheck;DB_CLOSE_DELAY=-1");
+        }
+        QueryPlanVerifier verifier = new QueryPlanVerifier();
+        int failures;
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            seed(conn);
+            verifier.addChecks();
+            failures = verifier.run(conn);
+        } finally {
+            DatabaseUtil.shutdown();
+        }
+        if (failures > 0) {
+            System.err.println(failures + " query plan check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All query plans use an index without sorting");
+    }
+
+    private void addChecks() {
+        LocalDate today = LocalDate.now();
+        Time midnight = Time.valueOf(LocalTime.MIDNIGHT);
+
+        check("ReminderDAO.findByUserId / exportByUserId", ReminderDAO.FIND_BY_USER_SQL, 7L, midnight);
+        check("ReminderDAO.findRemindersForDate", ReminderDAO.FIND_FOR_DATE_SQL,
+            7L, Date.valueOf(today), Date.valueOf(today));
+        check("ReminderDAO.findById", ReminderDAO.FIND_BY_ID_SQL, 42L);
+        // Reads every active reminder once at startup to build the schedule; a scan is the right plan
+        allowScan("ReminderDAO.findSchedulableReminders", ReminderDAO.FIND_SCHEDULABLE_SQL, Date.valueOf(today));
+
+        ReminderQuery firstPage = new ReminderQuery();
+        firstPage.setLimit(100);
+        check("ReminderDAO.findPage (first page)", ReminderDAO.pageSql(firstPage), 7L, midnight, 101);
+
+        ReminderQuery filtered = new ReminderQuery();
+        filtered.setLimit(100);
+        filtered.setStatus("ACTIVE");
+        filtered.setFrom(today);
+        filtered.setTo(today.plusDays(30));
+        check("ReminderDAO.findPage (status and dates)", ReminderDAO.pageSql(filtered),
+            7L, "ACTIVE", Date.valueOf(today.plusDays(30)), Date.valueOf(today), midnight, 101);
+
+        ReminderQuery nextPage = new ReminderQuery();
+        nextPage.setLimit(100);
+        nextPage.setCursor(ReminderQuery.encodeCursor(LocalTime.NOON, 1000L));
+        Time noon = Time.valueOf(LocalTime.NOON);
+        check("ReminderDAO.findPage (cursor)", ReminderDAO.pageSql(nextPage), 7L, noon, noon, 1000L, 101);
+
+        check("AdherenceDAO.findDays", AdherenceDAO.FIND_DAYS_SQL,
+            7L, Date.valueOf(today.minusDays(365)), Date.valueOf(today));
+
+        check("UserDAO.findByEmail", UserDAO.FIND_BY_EMAIL_SQL, "user7@plancheck.test");
+        check("UserDAO.findById", UserDAO.FIND_BY_ID_SQL, 7L);
+        check("UserDAO.emailExists", UserDAO.EMAIL_EXISTS_SQL, "user7@plancheck.test");
+    }
+
+    private void check(String name, String sql, Object... params) {
+        checks.add(new Check(name, sql, params, false));
+    }
+
+    private void allowScan(String name, String sql, Object... params) {
+        checks.add(new Check(name, sql, params, true));
+    }
+
+    /**
+     * EXPLAIN every check; returns the number that failed
+     */
+    private int run(Connection conn) throws SQLException {
+        int failures = 0;
+        for (Check check : checks) {
+            String plan = explain(conn, check);
+            List<String> problems = new ArrayList<>();
+
+            Matcher hint = INDEX_HINT.matcher(plan);
+            boolean found = hint.find();
+            String index = found ? hint.group(1) : "?";
+            boolean fullRead = !found || index.endsWith(".tableScan") || !":".equals(hint.group(2));
+            if (fullRead && !check.scanAllowed) {
+                problems.add("reads all of " + index);
+            }
+            if (plan.contains("ORDER BY") && !plan.contains("/* index sorted */")) {
+                problems.add("sorts its results");
+            }
+
+            if (problems.isEmpty()) {
+                System.out.println("OK    " + check.name + " [" + index + "]");
+            } else {
+                failures++;
+                System.out.println("FAIL  " + check.name + ": " + String.join(", ", problems));
+                System.out.println("      " + plan.replaceAll("\\s+", " "));
+            }
+        }
+        return failures;
+    }
+
+    private static String explain(Connection conn, Check check) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + check.sql)) {
+            for (int i = 0; i < check.params.length; i++) {
+                stmt.setObject(i + 1, check.params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * Spread REMINDERS rows over USERS users with a mix of statuses, dates and times,
+     * then ANALYZE so the optimizer sees realistic selectivity
+     */
+    private static void seed(Connection conn) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO users (full_name, email, password_hash) " +
+                "SELECT 'User ' || x, 'user' || x || '@plancheck.test', 'x' FROM SYSTEM_RANGE(1, " + USERS + ")");
+            long firstUser;
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(id) FROM users")) {
+                rs.next();
+                firstUser = rs.getLong(1);
+            }
+            stmt.execute("INSERT INTO reminders (user_id, medicine_name, dosage, frequency, start_date, end_date, " +
+                "time_of_day, notes, status) " +
+                "SELECT " + firstUser + " + MOD(x, " + USERS + "), 'Medicine ' || MOD(x, 50), '1 tablet', " +
+                "'DAILY', DATEADD(DAY, -MOD(x, 120), CURRENT_DATE), " +
+                "CASE WHEN MOD(x, 3) = 0 THEN NULL ELSE DATEADD(DAY, MOD(x, 90) - 30, CURRENT_DATE) END, " +
+                "DATEADD(MINUTE, MOD(x * 7, 1440), TIME '00:00:00'), '', " +
+                "CASE MOD(x, 5) WHEN 0 THEN 'COMPLETED' WHEN 1 THEN 'CANCELLED' ELSE 'ACTIVE' END " +
+                "FROM SYSTEM_RANGE(1, " + REMINDERS + ")");
+            stmt.execute("ANALYZE");
+        }
+        System.out.println("Seeded " + USERS + " users and " + REMINDERS + " reminders in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static final class Check {
+        private final String name;
+        private final String sql;
+        private final Object[] params;
+        private final boolean scanAllowed;
+
+        private Check(String name, String sql, Object[] params, boolean scanAllowed) {
+            this.name = name;
+            this.sql = sql;
+            this.params = params;
+            this.scanAllowed = scanAllowed;
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.elitecure.dao;
 import com.elitecure.model.Reminder;
 import com.elitecure.util.DatabaseUtil;
 
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -14,137 +16,228 @@ import java.util.Optional;
  * Handles all database operations for medicine reminders
  */
 public class ReminderDAO {
+    private static final String INSERT_SQL =
+        "INSERT INTO reminders (user_id, medicine_name, dosage, frequency, start_date, " +
+        "end_date, time_of_day, notes, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+        "UPDATE reminders SET medicine_name = ?, dosage = ?, frequency = ?, " +
+        "start_date = ?, end_date = ?, time_of_day = ?, notes = ?, status = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM reminders WHERE id = ?";
+    // Read queries are constants so QueryPlanVerifier checks exactly what runs here.
+    // ORDER BY repeats the equality-bound index columns (user_id, status) so H2
+    // reads rows in index order instead of sorting them.
+    static final String FIND_BY_USER_SQL =
+        "SELECT * FROM reminders WHERE user_id = ? AND time_of_day >= ? ORDER BY user_id, time_of_day, id";
+    static final String FIND_FOR_DATE_SQL =
+        "SELECT * FROM reminders WHERE user_id = ? AND status = 'ACTIVE' " +
+        "AND start_date <= ? AND (end_date IS NULL OR end_date >= ?) " +
+        "ORDER BY user_id, status, time_of_day, id";
+    static final String FIND_SCHEDULABLE_SQL =
+        "SELECT * FROM reminders WHERE status = 'ACTIVE' AND (end_date IS NULL OR end_date >= ?)";
+    static final String FIND_BY_ID_SQL = "SELECT * FROM reminders WHERE id = ?";
+    private static final int EXPORT_FETCH_SIZE = Integer.getInteger("elitecure.export.fetchSize", 500);
+
+    /**
+     * Receives rows from exportByUserId
+     */
+    public interface RowConsumer {
+        void accept(Reminder reminder) throws IOException;
+    }
 
     /**
      * Create a new reminder
      */
     public Reminder create(Reminder reminder) throws SQLException {
-        String sql = "INSERT INTO reminders (user_id, medicine_name, dosage, frequency, start_date, " +
-                     "end_date, time_of_day, notes, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setLong(1, reminder.getUserId());
-            stmt.setString(2, reminder.getMedicineName());
-            stmt.setString(3, reminder.getDosage());
-            stmt.setString(4, reminder.getFrequency());
-            stmt.setDate(5, Date.valueOf(reminder.getStartDate()));
-            stmt.setDate(6, reminder.getEndDate() != null ? Date.valueOf(reminder.getEndDate()) : null);
-            stmt.setTime(7, Time.valueOf(reminder.getTimeOfDay()));
-            stmt.setString(8, reminder.getNotes());
-            stmt.setString(9, reminder.getStatus() != null ? reminder.getStatus() : "ACTIVE");
-            
-            int affectedRows = stmt.executeUpdate();
-            
-            if (affectedRows == 0) {
-                throw new SQLException("Creating reminder failed, no rows affected.");
-            }
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    reminder.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating reminder failed, no ID obtained.");
-                }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            Long id = QueryExecutor.insert(conn, INSERT_SQL, stmt -> bindInsert(stmt, reminder));
+            if (id == null) {
+                throw new SQLException("Creating reminder failed, no ID obtained.");
             }
+            reminder.setId(id);
         }
         
         return reminder;
     }
 
+    /**
+     * Insert several reminders with one JDBC batch in a single transaction
+     * Either all rows are written or none; generated ids are set on the passed objects.
+     */
+    public void createAll(List<Reminder> reminders) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Reminder reminder : reminders) {
+                    bindInsert(stmt, reminder);
+                    stmt.addBatch();
+                }
+                QueryExecutor.executeBatch(stmt, INSERT_SQL);
+                readGeneratedKeys(stmt, reminders);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
     /**
      * Find all reminders for a specific user
      */
     public List<Reminder> findByUserId(Long userId) throws SQLException {
-        String sql = "SELECT * FROM reminders WHERE user_id = ? ORDER BY time_of_day ASC";
-        List<Reminder> reminders = new ArrayList<>();
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, userId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    reminders.add(mapResultSetToReminder(rs));
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.list(conn, FIND_BY_USER_SQL, stmt -> {
+                stmt.setLong(1, userId);
+                stmt.setTime(2, Time.valueOf(LocalTime.MIDNIGHT));
+            }, this::mapResultSetToReminder);
+        }
+    }
+
+    /**
+     * Find one page of a user's reminders in (time_of_day, id) order
+     * Returns up to limit + 1 rows; the extra row only tells the caller that another page exists.
+     */
+    public List<Reminder> findPage(Long userId, ReminderQuery query) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.list(conn, pageSql(query), stmt -> {
+                int index = 1;
+                stmt.setLong(index++, userId);
+                if (query.getStatus() != null) {
+                    stmt.setString(index++, query.getStatus());
+                }
+                if (query.getTo() != null) {
+                    stmt.setDate(index++, Date.valueOf(query.getTo()));
+                }
+                if (query.getFrom() != null) {
+                    stmt.setDate(index++, Date.valueOf(query.getFrom()));
+                }
+                if (query.getAfterTime() != null) {
+                    Time after = Time.valueOf(query.getAfterTime());
+                    stmt.setTime(index++, after);
+                    stmt.setTime(index++, after);
+                    stmt.setLong(index++, query.getAfterId());
+                } else {
+                    stmt.setTime(index++, Time.valueOf(LocalTime.MIDNIGHT));
+                }
+                stmt.setInt(index, query.getLimit() + 1);
+            }, this::mapResultSetToReminder);
+        }
+    }
+
+    /**
+     * SQL for findPage; which filters appear depends on the query
+     */
+    static String pageSql(ReminderQuery query) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM reminders WHERE user_id = ?");
+        if (query.getStatus() != null) {
+            sql.append(" AND status = ?");
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND start_date <= ?");
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND (end_date IS NULL OR end_date >= ?)");
+        }
+        // Always bound time_of_day (from midnight on the first page) so H2 picks the
+        // (user_id, time_of_day, id) index over the foreign key one
+        sql.append(" AND time_of_day >= ?");
+        if (query.getAfterTime() != null) {
+            sql.append(" AND (time_of_day > ? OR id > ?)");
+        }
+        // Same order as ORDER BY time_of_day, id, spelled with the index's leading
+        // columns: H2 only reads rows in index order when ORDER BY starts with them
+        sql.append(query.getStatus() != null
+            ? " ORDER BY user_id, status, time_of_day, id LIMIT ?"
+            : " ORDER BY user_id, time_of_day, id LIMIT ?");
+        return sql.toString();
+    }
+
+    /**
+     * Stream all of a user's reminders, in (time_of_day, id) order, to a consumer one row at a time
+     * Uses a forward-only, read-only cursor with a fetch size and H2's lazy query
+     * execution, so rows are produced as they are read instead of being
+     * materialized first; memory stays flat however many rows there are.
+     */
+    public void exportByUserId(Long userId, RowConsumer consumer) throws SQLException, IOException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            try (Statement settings = conn.createStatement()) {
+                settings.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            try {
+                // prepareStatement's defaults are already forward-only and read-only
+                QueryExecutor.forEach(conn, FIND_BY_USER_SQL, stmt -> {
+                    stmt.setFetchSize(EXPORT_FETCH_SIZE);
+                    stmt.setLong(1, userId);
+                    stmt.setTime(2, Time.valueOf(LocalTime.MIDNIGHT));
+                }, rs -> consumer.accept(mapResultSetToReminder(rs)));
+            } finally {
+                try (Statement settings = conn.createStatement()) {
+                    settings.execute("SET LAZY_QUERY_EXECUTION FALSE");
                 }
             }
         }
-        
-        return reminders;
     }
 
     /**
      * Find today's active reminders for a user
      */
     public List<Reminder> findTodayReminders(Long userId) throws SQLException {
+        return findRemindersForDate(userId, LocalDate.now());
+    }
+
+    /**
+     * Find a user's active reminders that fall on the given date
+     */
+    public List<Reminder> findRemindersForDate(Long userId, LocalDate date) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.list(conn, FIND_FOR_DATE_SQL, stmt -> {
+                stmt.setLong(1, userId);
+                stmt.setDate(2, Date.valueOf(date));
+                stmt.setDate(3, Date.valueOf(date));
+            }, this::mapResultSetToReminder);
+        }
+    }
+
+    /**
+     * Find all active reminders that have not ended yet, across all users
+     * Used to build the in-memory reminder schedule at startup
+     */
+    public List<Reminder> findSchedulableReminders() throws SQLException {
         LocalDate today = LocalDate.now();
-        String sql = "SELECT * FROM reminders WHERE user_id = ? AND status = 'ACTIVE' " +
-                     "AND start_date <= ? AND (end_date IS NULL OR end_date >= ?) " +
-                     "ORDER BY time_of_day ASC";
-        List<Reminder> reminders = new ArrayList<>();
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, userId);
-            stmt.setDate(2, Date.valueOf(today));
-            stmt.setDate(3, Date.valueOf(today));
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    reminders.add(mapResultSetToReminder(rs));
-                }
-            }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.list(conn, FIND_SCHEDULABLE_SQL, stmt -> stmt.setDate(1, Date.valueOf(today)),
+                this::mapResultSetToReminder);
         }
-        
-        return reminders;
     }
 
     /**
      * Find reminder by ID
      */
     public Optional<Reminder> findById(Long id) throws SQLException {
-        String sql = "SELECT * FROM reminders WHERE id = ?";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, id);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToReminder(rs));
-                }
-            }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.first(conn, FIND_BY_ID_SQL, stmt -> stmt.setLong(1, id),
+                this::mapResultSetToReminder);
         }
-        
-        return Optional.empty();
     }
 
     /**
      * Update a reminder
      */
     public boolean update(Reminder reminder) throws SQLException {
-        String sql = "UPDATE reminders SET medicine_name = ?, dosage = ?, frequency = ?, " +
-                     "start_date = ?, end_date = ?, time_of_day = ?, notes = ?, status = ? " +
-                     "WHERE id = ?";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, reminder.getMedicineName());
-            stmt.setString(2, reminder.getDosage());
-            stmt.setString(3, reminder.getFrequency());
-            stmt.setDate(4, Date.valueOf(reminder.getStartDate()));
-            stmt.setDate(5, reminder.getEndDate() != null ? Date.valueOf(reminder.getEndDate()) : null);
-            stmt.setTime(6, Time.valueOf(reminder.getTimeOfDay()));
-            stmt.setString(7, reminder.getNotes());
-            stmt.setString(8, reminder.getStatus());
-            stmt.setLong(9, reminder.getId());
-            
-            return stmt.executeUpdate() > 0;
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.update(conn, UPDATE_SQL, stmt -> {
+                stmt.setString(1, reminder.getMedicineName());
+                stmt.setString(2, reminder.getDosage());
+                stmt.setString(3, reminder.getFrequency());
+                stmt.setDate(4, Date.valueOf(reminder.getStartDate()));
+                stmt.setDate(5, reminder.getEndDate() != null ? Date.valueOf(reminder.getEndDate()) : null);
+                stmt.setTime(6, Time.valueOf(reminder.getTimeOfDay()));
+                stmt.setString(7, reminder.getNotes());
+                stmt.setString(8, reminder.getStatus());
+                stmt.setLong(9, reminder.getId());
+            }) > 0;
         }
     }
 
@@ -152,21 +245,38 @@ public class ReminderDAO {
      * Delete a reminder
      */
     public boolean delete(Long id) throws SQLException {
-        String sql = "DELETE FROM reminders WHERE id = ?";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, id);
-            
-            return stmt.executeUpdate() > 0;
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.update(conn, DELETE_SQL, stmt -> stmt.setLong(1, id)) > 0;
+        }
+    }
+
+    private static void bindInsert(PreparedStatement stmt, Reminder reminder) throws SQLException {
+        stmt.setLong(1, reminder.getUserId());
+        stmt.setString(2, reminder.getMedicineName());
+        stmt.setString(3, reminder.getDosage());
+        stmt.setString(4, reminder.getFrequency());
+        stmt.setDate(5, Date.valueOf(reminder.getStartDate()));
+        stmt.setDate(6, reminder.getEndDate() != null ? Date.valueOf(reminder.getEndDate()) : null);
+        stmt.setTime(7, Time.valueOf(reminder.getTimeOfDay()));
+        stmt.setString(8, reminder.getNotes());
+        stmt.setString(9, reminder.getStatus() != null ? reminder.getStatus() : "ACTIVE");
+    }
+
+    private static void readGeneratedKeys(PreparedStatement stmt, List<Reminder> reminders) throws SQLException {
+        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            for (Reminder reminder : reminders) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("Creating reminders failed, not all IDs obtained.");
+                }
+                reminder.setId(generatedKeys.getLong(1));
+            }
         }
     }
 
     /**
      * Map ResultSet to Reminder object
      */
-    private Reminder mapResultSetToReminder(ResultSet rs) throws SQLException {
+    Reminder mapResultSetToReminder(ResultSet rs) throws SQLException {
         Reminder reminder = new Reminder();
         reminder.setId(rs.getLong("id"));
         reminder.setUserId(rs.getLong("user_id"));
@@ -0,0 +1,95 @@
+package com.elitecure.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Filters and keyset position for one page of a user's reminders
+ * Pages are ordered by (time_of_day, id); the cursor is the key of the last
+ * row of the previous page, so fetching the next page is an index seek
+ * rather than an OFFSET scan.
+ */
+public class ReminderQuery {
+    private String status;
+    private LocalDate from;
+    private LocalDate to;
+    private LocalTime afterTime;
+    private Long afterId;
+    private int limit;
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Only reminders still running on or after this date
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    /**
+     * Only reminders that have started on or before this date
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public LocalTime getAfterTime() {
+        return afterTime;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Continue after the position encoded in a cursor from a previous page
+     */
+    public void setCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            afterTime = null;
+            afterId = null;
+            return;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = decoded.indexOf(',');
+            afterTime = LocalTime.parse(decoded.substring(0, comma));
+            afterId = Long.parseLong(decoded.substring(comma + 1));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Opaque cursor pointing just past the given row
+     */
+    public static String encodeCursor(LocalTime timeOfDay, Long id) {
+        String key = timeOfDay + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -11,33 +11,27 @@ import java.util.Optional;
  * Handles all database operations for users
  */
 public class UserDAO {
+    private static final String INSERT_SQL = "INSERT INTO users (full_name, email, password_hash) VALUES (?, ?, ?)";
+    private static final String UPDATE_PASSWORD_SQL = "UPDATE users SET password_hash = ? WHERE id = ?";
+    // Read queries, shared with QueryPlanVerifier
+    static final String FIND_BY_EMAIL_SQL = "SELECT * FROM users WHERE email = ?";
+    static final String FIND_BY_ID_SQL = "SELECT * FROM users WHERE id = ?";
+    static final String EMAIL_EXISTS_SQL = "SELECT COUNT(*) FROM users WHERE email = ?";
 
     /**
      * Create a new user in the database
      */
     public User create(User user) throws SQLException {
-        String sql = "INSERT INTO users (full_name, email, password_hash) VALUES (?, ?, ?)";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setString(1, user.getFullName());
-            stmt.setString(2, user.getEmail());
-            stmt.setString(3, user.getPasswordHash());
-            
-            int affectedRows = stmt.executeUpdate();
-            
-            if (affectedRows == 0) {
-                throw new SQLException("Creating user failed, no rows affected.");
-            }
-            
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    user.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating user failed, no ID obtained.");
-                }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            Long id = QueryExecutor.insert(conn, INSERT_SQL, stmt -> {
+                stmt.setString(1, user.getFullName());
+                stmt.setString(2, user.getEmail());
+                stmt.setString(3, user.getPasswordHash());
+            });
+            if (id == null) {
+                throw new SQLException("Creating user failed, no ID obtained.");
             }
+            user.setId(id);
         }
         
         return user;
@@ -47,65 +41,42 @@ public class UserDAO {
      * Find user by email
      */
     public Optional<User> findByEmail(String email) throws SQLException {
-        String sql = "SELECT * FROM users WHERE email = ?";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, email);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    User user = mapResultSetToUser(rs);
-                    return Optional.of(user);
-                }
-            }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.first(conn, FIND_BY_EMAIL_SQL, stmt -> stmt.setString(1, email),
+                this::mapResultSetToUser);
         }
-        
-        return Optional.empty();
     }
 
     /**
      * Find user by ID
      */
     public Optional<User> findById(Long id) throws SQLException {
-        String sql = "SELECT * FROM users WHERE id = ?";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setLong(1, id);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    User user = mapResultSetToUser(rs);
-                    return Optional.of(user);
-                }
-            }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.first(conn, FIND_BY_ID_SQL, stmt -> stmt.setLong(1, id),
+                this::mapResultSetToUser);
         }
-        
-        return Optional.empty();
     }
 
     /**
      * Check if email already exists
      */
     public boolean emailExists(String email) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, email);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.first(conn, EMAIL_EXISTS_SQL, stmt -> stmt.setString(1, email), rs -> rs.getInt(1))
+                .orElse(0) > 0;
+        }
+    }
+
+    /**
+     * Replace a user's password hash (e.g. after a work factor change)
+     */
+    public boolean updatePasswordHash(Long id, String passwordHash) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return QueryExecutor.update(conn, UPDATE_PASSWORD_SQL, stmt -> {
+                stmt.setString(1, passwordHash);
+                stmt.setLong(2, id);
+            }) > 0;
         }
-        
-        return false;
     }
 
     /**
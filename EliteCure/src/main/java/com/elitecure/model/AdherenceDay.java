@@ -0,0 +1,105 @@
+package com.elitecure.model;
+
+import java.time.LocalDate;
+
+/**
+ * One adherence_daily row: how a user did with one reminder on one day
+ */
+public class AdherenceDay {
+    private Long reminderId;
+    private String medicineName;
+    private LocalDate doseDate;
+    private int scheduled;
+    private int taken;
+    private int late;
+    private int skipped;
+
+    public AdherenceDay() {}
+
+    public AdherenceDay(Long reminderId, String medicineName, LocalDate doseDate,
+                        int scheduled, int taken, int late, int skipped) {
+        this.reminderId = reminderId;
+        this.medicineName = medicineName;
+        this.doseDate = doseDate;
+        this.scheduled = scheduled;
+        this.taken = taken;
+        this.late = late;
+        this.skipped = skipped;
+    }
+
+    public Long getReminderId() {
+        return reminderId;
+    }
+
+    public String getMedicineName() {
+        return medicineName;
+    }
+
+    public LocalDate getDoseDate() {
+        return doseDate;
+    }
+
+    /**
+     * 1 once the reminder's dose that day has come due (or the closed day shows it was due), else 0
+     */
+    public int getScheduled() {
+        return scheduled;
+    }
+
+    public int getTaken() {
+        return taken;
+    }
+
+    /**
+     * Taken marks made more than elitecure.adherence.lateMinutes after the dose time
+     */
+    public int getLate() {
+        return late;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Doses this row stands for: reminders fire once a day, so one if the dose
+     * was due or marked, else none. Repeated marks of the same dose count once.
+     */
+    public int getDoses() {
+        return scheduled > 0 || taken + skipped > 0 ? 1 : 0;
+    }
+
+    public int getDosesTaken() {
+        return taken > 0 ? 1 : 0;
+    }
+
+    /**
+     * Taken, but every taken mark was late
+     */
+    public int getDosesLate() {
+        return taken > 0 && late == taken ? 1 : 0;
+    }
+
+    /**
+     * Skipped and never taken
+     */
+    public int getDosesSkipped() {
+        return taken == 0 && skipped > 0 ? 1 : 0;
+    }
+
+    public int getDosesMissed() {
+        return getDoses() - getDosesTaken() - getDosesSkipped();
+    }
+
+    @Override
+    public String toString() {
+        return "AdherenceDay{" +
+                "reminderId=" + reminderId +
+                ", doseDate=" + doseDate +
+                ", scheduled=" + scheduled +
+                ", taken=" + taken +
+                ", late=" + late +
+                ", skipped=" + skipped +
+                '}';
+    }
+}
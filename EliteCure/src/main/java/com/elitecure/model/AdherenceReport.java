@@ -0,0 +1,214 @@
+package com.elitecure.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adherence over a date range, per medication and overall
+ * Built from adherence_daily rows in date order. Doses are only counted as
+ * missed once their day is closed, so today's unmarked doses are not missed yet.
+ */
+public class AdherenceReport {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final LocalDate closedThrough;
+    private final Summary overall = new Summary(null, null);
+    private final List<Summary> medications = new ArrayList<>();
+
+    private final transient Map<Long, Summary> byReminder = new LinkedHashMap<>();
+    private transient LocalDate currentDay;
+    private transient int dayDoses;
+    private transient int dayTaken;
+    private transient int dayLate;
+    private transient int daySkipped;
+
+    public AdherenceReport(LocalDate from, LocalDate to, LocalDate closedThrough) {
+        this.from = from;
+        this.to = to;
+        this.closedThrough = closedThrough;
+    }
+
+    /**
+     * Add the next row; rows must arrive in date order
+     */
+    public void add(AdherenceDay day) {
+        if (!day.getDoseDate().equals(currentDay)) {
+            endDay();
+            currentDay = day.getDoseDate();
+        }
+        // Doses are marked scheduled as they come due; until the day is closed an
+        // unmarked one may still be taken, so only marked doses count
+        boolean open = closedThrough != null && day.getDoseDate().isAfter(closedThrough);
+        int doses = open ? day.getDosesTaken() + day.getDosesSkipped() : day.getDoses();
+        byReminder.computeIfAbsent(day.getReminderId(), id -> new Summary(id, day.getMedicineName()))
+            .addDay(doses, day.getDosesTaken(), day.getDosesLate(), day.getDosesSkipped(),
+                day.getMedicineName());
+        dayDoses += doses;
+        dayTaken += day.getDosesTaken();
+        dayLate += day.getDosesLate();
+        daySkipped += day.getDosesSkipped();
+    }
+
+    /**
+     * Compute percentages once every row has been added
+     */
+    public AdherenceReport finish() {
+        endDay();
+        overall.finish();
+        for (Summary summary : byReminder.values()) {
+            summary.finish();
+            medications.add(summary);
+        }
+        return this;
+    }
+
+    private void endDay() {
+        if (currentDay != null) {
+            overall.addDay(dayDoses, dayTaken, dayLate, daySkipped, null);
+        }
+        dayDoses = 0;
+        dayTaken = 0;
+        dayLate = 0;
+        daySkipped = 0;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Days after this are still open: their unmarked doses are not counted as missed
+     */
+    public LocalDate getClosedThrough() {
+        return closedThrough;
+    }
+
+    public Summary getOverall() {
+        return overall;
+    }
+
+    public List<Summary> getMedications() {
+        return medications;
+    }
+
+    /**
+     * Counts, percentages of doses and streaks for one medication, or for all
+     * of them when reminderId is null. A streak is a run of days on which every
+     * dose was taken; days with nothing due neither extend nor break it.
+     */
+    public static class Summary {
+        private final Long reminderId;
+        private String medicineName;
+        private int doses;
+        private int taken;
+        private int late;
+        private int skipped;
+        private int missed;
+        private double takenPercent;
+        private double latePercent;
+        private double missedPercent;
+        private int currentStreak;
+        private int longestStreak;
+
+        Summary(Long reminderId, String medicineName) {
+            this.reminderId = reminderId;
+            this.medicineName = medicineName;
+        }
+
+        void addDay(int dayDoses, int dayTaken, int dayLate, int daySkipped, String name) {
+            if (name != null) {
+                // Rows carry the name as of their day; report the latest
+                medicineName = name;
+            }
+            if (dayDoses == 0) {
+                return;
+            }
+            // Never count more marks than doses, so missed stays at or above zero
+            dayTaken = Math.min(dayTaken, dayDoses);
+            dayLate = Math.min(dayLate, dayTaken);
+            daySkipped = Math.min(daySkipped, dayDoses - dayTaken);
+            doses += dayDoses;
+            taken += dayTaken;
+            late += dayLate;
+            skipped += daySkipped;
+            missed += dayDoses - dayTaken - daySkipped;
+            if (dayTaken >= dayDoses) {
+                currentStreak++;
+                longestStreak = Math.max(longestStreak, currentStreak);
+            } else {
+                currentStreak = 0;
+            }
+        }
+
+        void finish() {
+            takenPercent = percent(taken);
+            latePercent = percent(late);
+            missedPercent = percent(missed);
+        }
+
+        private double percent(int count) {
+            return doses == 0 ? 0.0 : Math.round(count * 1000.0 / doses) / 10.0;
+        }
+
+        public Long getReminderId() {
+            return reminderId;
+        }
+
+        public String getMedicineName() {
+            return medicineName;
+        }
+
+        public int getDoses() {
+            return doses;
+        }
+
+        public int getTaken() {
+            return taken;
+        }
+
+        /**
+         * Taken, but late; included in taken
+         */
+        public int getLate() {
+            return late;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getMissed() {
+            return missed;
+        }
+
+        public double getTakenPercent() {
+            return takenPercent;
+        }
+
+        public double getLatePercent() {
+            return latePercent;
+        }
+
+        public double getMissedPercent() {
+            return missedPercent;
+        }
+
+        /**
+         * Streak ending on the last day in the range with a dose due
+         */
+        public int getCurrentStreak() {
+            return currentStreak;
+        }
+
+        public int getLongestStreak() {
+            return longestStreak;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.elitecure.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry in the dose log: the user took (or skipped) a scheduled dose
+ */
+public class DoseEvent {
+    public static final String TAKEN = "TAKEN";
+    public static final String SKIPPED = "SKIPPED";
+
+    private Long id;
+    private Long reminderId;
+    private Long userId;
+    private LocalDateTime scheduledAt;
+    private LocalDateTime takenAt;
+    private String action; // TAKEN, SKIPPED
+
+    public DoseEvent() {}
+
+    public DoseEvent(Long reminderId, Long userId, LocalDateTime scheduledAt, LocalDateTime takenAt, String action) {
+        this.reminderId = reminderId;
+        this.userId = userId;
+        this.scheduledAt = scheduledAt;
+        this.takenAt = takenAt;
+        this.action = action;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getReminderId() {
+        return reminderId;
+    }
+
+    public void setReminderId(Long reminderId) {
+        this.reminderId = reminderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * The dose time this event answers
+     */
+    public LocalDateTime getScheduledAt() {
+        return scheduledAt;
+    }
+
+    public void setScheduledAt(LocalDateTime scheduledAt) {
+        this.scheduledAt = scheduledAt;
+    }
+
+    /**
+     * When the user responded
+     */
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    @Override
+    public String toString() {
+        return "DoseEvent{" +
+                "id=" + id +
+                ", reminderId=" + reminderId +
+                ", userId=" + userId +
+                ", scheduledAt=" + scheduledAt +
+                ", takenAt=" + takenAt +
+                ", action='" + action + '\'' +
+                '}';
+    }
+}
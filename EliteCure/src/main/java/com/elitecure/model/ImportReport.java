@@ -0,0 +1,102 @@
+package com.elitecure.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk reminder import
+ * Only the first few rejected rows are listed so the report stays small no
+ * matter how many rows were bad; rejected counts all of them.
+ */
+public class ImportReport {
+    private long rows;
+    private long imported;
+    private long rejected;
+    private int commits;
+    private long elapsedMillis;
+    private boolean errorsTruncated;
+    private final List<RowError> errors = new ArrayList<>();
+
+    private final transient int maxErrors;
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void rowRead() {
+        rows++;
+    }
+
+    public void rowsImported(int count) {
+        imported += count;
+        commits++;
+    }
+
+    public void reject(long line, String error) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, error));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Data rows read from the upload (header and blank lines excluded)
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Rows written and committed
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public int getCommits() {
+        return commits;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * A rejected row and why; line is where the row starts in the upload (1-based)
+     */
+    public static class RowError {
+        private final long line;
+        private final String error;
+
+        public RowError(long line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.elitecure.model;
+
+/**
+ * Event pushed to a user's open reminder streams
+ * Either a due dose ("reminder") or a change to the user's reminders ("change")
+ */
+public class ReminderEvent {
+    public static final String TYPE_REMINDER = "reminder";
+    public static final String TYPE_CHANGE = "change";
+
+    private final long id;
+    private final Long userId;
+    private final String type;
+    private final String data;
+
+    public ReminderEvent(long id, Long userId, String type, String data) {
+        this.id = id;
+        this.userId = userId;
+        this.type = type;
+        this.data = data;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * JSON payload of the event
+     */
+    public String getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "ReminderEvent{" +
+                "id=" + id +
+                ", userId=" + userId +
+                ", type='" + type + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package com.elitecure.model;
+
+import java.util.List;
+
+/**
+ * One page of a user's reminders plus the cursor for the next page
+ */
+public class ReminderPage {
+    private final List<Reminder> reminders;
+    private final String nextCursor;
+
+    public ReminderPage(List<Reminder> reminders, String nextCursor) {
+        this.reminders = reminders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Reminder> getReminders() {
+        return reminders;
+    }
+
+    /**
+     * Cursor for the following page, or null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,117 @@
+package com.elitecure.service;
+
+import com.elitecure.dao.AdherenceDAO;
+import com.elitecure.model.Reminder;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records due doses in the adherence_daily rollup and closes finished days
+ * Dose events update the rollup as they are written; what they cannot record
+ * is a dose nobody marked. Each dose is marked scheduled as the scheduler
+ * fires it, so completing, cancelling or ending a reminder later does not
+ * erase a dose that was already due. Closing a finished day also marks the
+ * reminders that were due but never fired (the server was down), judged by
+ * their current state; days missed entirely are caught up at startup.
+ */
+public class AdherenceRollup implements ReminderScheduler.Listener {
+    // How often to check whether a day has ended
+    private static final long CHECK_MINUTES = Long.getLong("elitecure.adherence.closeCheckMinutes", 10);
+
+    private static final AdherenceRollup INSTANCE = new AdherenceRollup();
+
+    private final AdherenceDAO adherenceDAO = new AdherenceDAO();
+    private ScheduledExecutorService background;
+    private volatile LocalDate closedThrough;
+
+    private AdherenceRollup() {}
+
+    public static AdherenceRollup getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Close any days that ended since the last run, then keep closing them as they end
+     */
+    public synchronized void start() throws SQLException {
+        if (background != null) {
+            return;
+        }
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "adherence-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ReminderScheduler.getInstance().addListener(this);
+        closeFinishedDays();
+        background.scheduleWithFixedDelay(this::closeFinishedDaysQuietly, CHECK_MINUTES, CHECK_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public synchronized void shutdown() {
+        if (background == null) {
+            return;
+        }
+        ReminderScheduler.getInstance().removeListener(this);
+        // No shutdownNow(): interrupting a thread inside H2 closes the database
+        background.shutdown();
+        try {
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Record the dose as scheduled, off the scheduler thread
+     */
+    @Override
+    public void onReminderDue(Reminder reminder, LocalDateTime dueAt) {
+        try {
+            background.execute(() -> {
+                try {
+                    adherenceDAO.markScheduled(reminder.getId(), dueAt.toLocalDate());
+                } catch (SQLException e) {
+                    System.err.println("Error recording due dose of reminder " + reminder.getId() + ": "
+                        + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the day close marks it from the reminder's state
+        }
+    }
+
+    /**
+     * Last closed day, or null before start()
+     */
+    public LocalDate getClosedThrough() {
+        return closedThrough;
+    }
+
+    private void closeFinishedDays() throws SQLException {
+        LocalDate day = adherenceDAO.getClosedThrough();
+        closedThrough = day;
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        while (day.isBefore(yesterday)) {
+            day = day.plusDays(1);
+            long start = System.nanoTime();
+            int due = adherenceDAO.closeDay(day);
+            closedThrough = day;
+            System.out.println("Closed adherence for " + day + ": " + due + " doses due ("
+                + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        }
+    }
+
+    private void closeFinishedDaysQuietly() {
+        try {
+            closeFinishedDays();
+        } catch (SQLException e) {
+            System.err.println("Error closing adherence days: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.elitecure.service;
+
+/**
+ * Thrown when a bounded queue in front of a slow resource is full
+ * Controllers answer it with 429 and a short Retry-After.
+ */
+public class BusyException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public BusyException(String message) {
+        super(message);
+    }
+}
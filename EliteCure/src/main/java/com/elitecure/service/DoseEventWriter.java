@@ -0,0 +1,281 @@
+package com.elitecure.service;
+
+import com.elitecure.dao.DoseEventDAO;
+import com.elitecure.model.DoseEvent;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind queue for the dose log with group commit
+ * Requests only enqueue the event; one writer thread takes whatever has
+ * queued up (waiting up to elitecure.doses.lingerMillis for more after the
+ * first event, at most elitecure.doses.maxBatch per transaction) and writes it
+ * with one JDBC batch and one commit. Under the morning "mark taken" rush
+ * hundreds of events share a commit instead of paying for one each.
+ *
+ * Events are acknowledged before they are durable: a crash can lose the
+ * last linger window. shutdown() drains the queue before returning. An event
+ * for a dose that is already logged is counted as a duplicate and not written.
+ *
+ * A batch that fails with a transient error (no free connection, lock timeout,
+ * lost connection) stays with the writer and is retried with backoff, up to
+ * elitecure.doses.retryMaxMillis between attempts, while new events queue up
+ * behind it. Only other errors, such as a constraint violation, send the batch
+ * through one-at-a-time writes to isolate the bad event.
+ */
+public class DoseEventWriter {
+    private static final int CAPACITY = Integer.getInteger("elitecure.doses.queueCapacity", 10000);
+    private static final int MAX_BATCH = Integer.getInteger("elitecure.doses.maxBatch", 500);
+    private static final long LINGER_MILLIS = Long.getLong("elitecure.doses.lingerMillis", 20);
+    private static final long RETRY_MIN_MILLIS = 100;
+    private static final long RETRY_MAX_MILLIS = Long.getLong("elitecure.doses.retryMaxMillis", 5000);
+    // After shutdown starts, a batch gets this many attempts before it is given up
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+    // How often an idle writer checks for shutdown
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    private static final DoseEventWriter INSTANCE = new DoseEventWriter();
+
+    private final DoseEventDAO doseEventDAO = new DoseEventDAO();
+    private final BlockingQueue<DoseEvent> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAccumulator maxBatch = new LongAccumulator(Math::max, 0);
+
+    private DoseEventWriter() {
+        writer = new Thread(this::run, "dose-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static DoseEventWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue an event for the next group commit
+     * Throws BusyException when the queue is full (the database is falling behind).
+     */
+    public void record(DoseEvent event) {
+        if (!running || !queue.offer(event)) {
+            rejected.increment();
+            throw new BusyException("Too many dose updates, please try again shortly");
+        }
+    }
+
+    /**
+     * Stop accepting events, write everything still queued and stop the writer thread
+     */
+    public void shutdown() {
+        // No interrupt: H2 closes its file channel when a thread is interrupted mid-write
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<DoseEvent> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        while (!rest.isEmpty()) {
+            List<DoseEvent> batch = rest.subList(0, Math.min(MAX_BATCH, rest.size()));
+            write(new ArrayList<>(batch));
+            batch.clear();
+        }
+        System.out.println("Dose writer stopped: " + getStats());
+    }
+
+    public Stats getStats() {
+        return new Stats(written.sum(), duplicates.sum(), commits.sum(), failed.sum(), retries.sum(),
+            rejected.sum(), queue.size(), maxBatch.get());
+    }
+
+    private void run() {
+        List<DoseEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                DoseEvent first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give concurrent requests a moment to join this commit
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+                while (batch.size() < MAX_BATCH) {
+                    queue.drainTo(batch, MAX_BATCH - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= MAX_BATCH || remaining <= 0) {
+                        break;
+                    }
+                    DoseEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Nothing interrupts this thread on purpose; treat it as shutdown
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * One transaction for the batch, retried with backoff while the error is transient
+     * Any other error retries the events one by one so a single bad row (e.g.
+     * its reminder was just deleted) cannot sink the rest.
+     */
+    private void write(List<DoseEvent> batch) {
+        long backoff = RETRY_MIN_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                int inserted = doseEventDAO.createAll(batch);
+                written.add(inserted);
+                duplicates.add(batch.size() - inserted);
+                commits.increment();
+                maxBatch.accumulate(batch.size());
+                return;
+            } catch (SQLException e) {
+                if (!isTransient(e)) {
+                    if (batch.size() == 1) {
+                        failed.increment();
+                        System.err.println("Dropping dose event " + batch.get(0) + ": " + e.getMessage());
+                        return;
+                    }
+                    System.err.println("Dose event batch of " + batch.size() + " failed, retrying singly: "
+                        + e.getMessage());
+                    break;
+                }
+                if (!running && attempt >= SHUTDOWN_ATTEMPTS) {
+                    failed.add(batch.size());
+                    System.err.println("Dropping " + batch.size() + " dose events at shutdown: " + e.getMessage());
+                    return;
+                }
+                retries.increment();
+                System.err.println("Dose event batch of " + batch.size() + " hit a transient error, retrying in "
+                    + backoff + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    running = false;
+                }
+                backoff = Math.min(backoff * 2, RETRY_MAX_MILLIS);
+            }
+        }
+        for (DoseEvent event : batch) {
+            write(new ArrayList<>(List.of(event)));
+        }
+    }
+
+    /**
+     * Errors worth retrying unchanged: pool timeouts, lock timeouts, deadlocks, lost connections
+     */
+    private static boolean isTransient(SQLException e) {
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException;
+    }
+
+    /**
+     * Write-behind counters; commits vs written shows how well events are being grouped
+     */
+    public static class Stats {
+        private final long written;
+        private final long duplicates;
+        private final long commits;
+        private final long failed;
+        private final long retries;
+        private final long rejected;
+        private final int queueDepth;
+        private final long maxBatch;
+
+        Stats(long written, long duplicates, long commits, long failed, long retries, long rejected,
+              int queueDepth, long maxBatch) {
+            this.written = written;
+            this.duplicates = duplicates;
+            this.commits = commits;
+            this.failed = failed;
+            this.retries = retries;
+            this.rejected = rejected;
+            this.queueDepth = queueDepth;
+            this.maxBatch = maxBatch;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        /**
+         * Events dropped because their dose was already logged
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        public long getCommits() {
+            return commits;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Batch attempts repeated after a transient error
+         */
+        public long getRetries() {
+            return retries;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getMaxBatch() {
+            return maxBatch;
+        }
+
+        /**
+         * Average events per commit
+         */
+        public double getAverageBatch() {
+            return commits == 0 ? 0.0 : (double) written / commits;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "written=" + written +
+                    ", duplicates=" + duplicates +
+                    ", commits=" + commits +
+                    ", avgBatch=" + String.format("%.1f", getAverageBatch()) +
+                    ", maxBatch=" + maxBatch +
+                    ", failed=" + failed +
+                    ", retries=" + retries +
+                    ", rejected=" + rejected +
+                    ", queueDepth=" + queueDepth +
+                    '}';
+        }
+    }
+}
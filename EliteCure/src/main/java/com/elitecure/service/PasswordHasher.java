@@ -0,0 +1,270 @@
+package com.elitecure.service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated executor
+ * The pool has one thread per core and a bounded queue, so a burst of logins
+ * can use the CPUs but cannot take every request thread with it. When the
+ * queue is full the call fails fast with BusyException (sent as 429).
+ */
+public class PasswordHasher {
+    private static final int ROUNDS = Integer.getInteger("elitecure.bcrypt.rounds", 10);
+    private static final int THREADS =
+        Integer.getInteger("elitecure.bcrypt.threads", Runtime.getRuntime().availableProcessors());
+    private static final int QUEUE_LIMIT = Integer.getInteger("elitecure.bcrypt.queueLimit", THREADS * 16);
+
+    private static final PasswordHasher INSTANCE = new PasswordHasher();
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder verifyCount = new LongAdder();
+    private final LongAdder rehashCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    private PasswordHasher() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_LIMIT),
+            r -> {
+                Thread thread = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Hash a password with the configured work factor
+     */
+    public String hash(String password) {
+        Future<String> future = submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(ROUNDS)));
+        hashCount.increment();
+        return await(future);
+    }
+
+    /**
+     * Check a password against a stored hash
+     */
+    public boolean verify(String password, String hash) {
+        Future<Boolean> future = submit(() -> BCrypt.checkpw(password, hash));
+        verifyCount.increment();
+        return await(future);
+    }
+
+    /**
+     * Whether a stored hash was made with a different work factor than the configured one
+     */
+    public boolean needsRehash(String hash) {
+        // "$2a$10$..." - the cost is the two digits after the second '$'
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$') {
+            return false;
+        }
+        int end = hash.indexOf('$', 1);
+        if (end < 0 || end + 3 > hash.length()) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(hash.substring(end + 1, end + 3)) != ROUNDS;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Re-hash a verified password in the background and hand the new hash to store
+     * Skipped quietly when the hasher is busy; the next login will try again.
+     */
+    public void rehashAsync(String password, HashStore store) {
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    store.store(timed(() -> BCrypt.hashpw(password, BCrypt.gensalt(ROUNDS)), queuedAt));
+                    rehashCount.increment();
+                } catch (Exception e) {
+                    System.err.println("Password rehash failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Busy: not worth a 429 for work the user didn't ask for
+        }
+    }
+
+    /**
+     * Stop the hashing threads
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getRounds() {
+        return ROUNDS;
+    }
+
+    public Stats getStats() {
+        return new Stats(hashCount.sum(), verifyCount.sum(), rehashCount.sum(), rejectedCount.sum(),
+            totalHashNanos.sum(), maxHashNanos.get(), totalQueueNanos.sum(),
+            executor.getQueue().size(), (int) maxQueueDepth.get(), executor.getActiveCount());
+    }
+
+    private <T> Future<T> submit(Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        try {
+            Future<T> future = executor.submit(() -> timed(work, queuedAt));
+            maxQueueDepth.accumulate(executor.getQueue().size());
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw new BusyException("Too many sign-in requests, please try again shortly");
+        }
+    }
+
+    private <T> T timed(Callable<T> work, long queuedAt) throws Exception {
+        long start = System.nanoTime();
+        totalQueueNanos.add(start - queuedAt);
+        try {
+            return work.call();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            totalHashNanos.add(elapsed);
+            maxHashNanos.accumulate(elapsed);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    /**
+     * Receives the new hash from rehashAsync
+     */
+    public interface HashStore {
+        void store(String newHash) throws Exception;
+    }
+
+    /**
+     * Hashing counters; latencies are time spent inside BCrypt, queue time is the wait before it
+     */
+    public static class Stats {
+        private final long hashCount;
+        private final long verifyCount;
+        private final long rehashCount;
+        private final long rejectedCount;
+        private final long totalHashNanos;
+        private final long maxHashNanos;
+        private final long totalQueueNanos;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final int active;
+
+        Stats(long hashCount, long verifyCount, long rehashCount, long rejectedCount, long totalHashNanos,
+              long maxHashNanos, long totalQueueNanos, int queueDepth, int maxQueueDepth, int active) {
+            this.hashCount = hashCount;
+            this.verifyCount = verifyCount;
+            this.rehashCount = rehashCount;
+            this.rejectedCount = rejectedCount;
+            this.totalHashNanos = totalHashNanos;
+            this.maxHashNanos = maxHashNanos;
+            this.totalQueueNanos = totalQueueNanos;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.active = active;
+        }
+
+        public long getHashCount() {
+            return hashCount;
+        }
+
+        public long getVerifyCount() {
+            return verifyCount;
+        }
+
+        public long getRehashCount() {
+            return rehashCount;
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        public long getTotalHashNanos() {
+            return totalHashNanos;
+        }
+
+        public long getMaxHashNanos() {
+            return maxHashNanos;
+        }
+
+        public long getTotalQueueNanos() {
+            return totalQueueNanos;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * Average time inside BCrypt per operation, in milliseconds
+         */
+        public double getAverageHashMillis() {
+            long completed = hashCount + verifyCount + rehashCount;
+            return completed == 0 ? 0.0 : totalHashNanos / 1_000_000.0 / completed;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hashCount=" + hashCount +
+                    ", verifyCount=" + verifyCount +
+                    ", rehashCount=" + rehashCount +
+                    ", rejectedCount=" + rejectedCount +
+                    ", avgHashMillis=" + String.format("%.1f", getAverageHashMillis()) +
+                    ", maxHashMillis=" + maxHashNanos / 1_000_000 +
+                    ", queueDepth=" + queueDepth +
+                    ", maxQueueDepth=" + maxQueueDepth +
+                    ", active=" + active +
+                    '}';
+        }
+    }
+}
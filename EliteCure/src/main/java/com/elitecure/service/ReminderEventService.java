@@ -0,0 +1,487 @@
+package com.elitecure.service;
+
+import com.elitecure.model.Reminder;
+import com.elitecure.model.ReminderEvent;
+import com.elitecure.util.GsonUtil;
+import com.elitecure.util.SessionManager;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fan-out of reminder events to open streams
+ * Keeps a small ring buffer of recent events per user so a reconnecting
+ * stream can replay what it missed, and delivers new events to every
+ * subscriber of that user on a dedicated dispatch thread.
+ *
+ * Delivery only queues a frame on the stream; the socket writes happen on a
+ * small writer pool, each under a deadline. A client that stops reading fills
+ * its own queue and is dropped, and never holds up anyone else's events.
+ *
+ * Each heartbeat also closes streams whose session has expired or been logged
+ * out, and forgets replay buffers no event has been added to for
+ * elitecure.sse.replayRetentionSeconds, so state is only kept for users who
+ * are, or were recently, connected.
+ */
+public class ReminderEventService implements ReminderScheduler.Listener {
+    private static final int REPLAY_BUFFER_SIZE = Integer.getInteger("elitecure.sse.replayBuffer", 64);
+    private static final int MAX_STREAMS = Integer.getInteger("elitecure.sse.maxStreams", 1000);
+    private static final int MAX_STREAMS_PER_USER = Integer.getInteger("elitecure.sse.maxStreamsPerUser", 5);
+    private static final long HEARTBEAT_SECONDS = Long.getLong("elitecure.sse.heartbeatSeconds", 20);
+    private static final long REPLAY_RETENTION_MILLIS =
+        TimeUnit.SECONDS.toMillis(Long.getLong("elitecure.sse.replayRetentionSeconds", 300));
+    private static final int WRITER_THREADS = Integer.getInteger("elitecure.sse.writerThreads", 4);
+    // Frames waiting on one stream before it is dropped as too slow
+    private static final int MAX_QUEUED_FRAMES = Integer.getInteger("elitecure.sse.maxQueuedFrames", 128);
+    private static final long WRITE_TIMEOUT_MILLIS =
+        TimeUnit.SECONDS.toMillis(Long.getLong("elitecure.sse.writeTimeoutSeconds", 10));
+
+    private static final ReminderEventService INSTANCE = new ReminderEventService();
+
+    /**
+     * A connected stream; implementations queue the event without blocking and
+     * return false once the peer is gone or has fallen too far behind
+     */
+    public interface Subscriber {
+        boolean deliver(ReminderEvent event);
+
+        boolean heartbeat();
+
+        /**
+         * Session the stream was opened with; the stream is closed once it is no longer valid
+         */
+        String getSessionId();
+
+        void close();
+    }
+
+    private final Gson gson = GsonUtil.getGson();
+    // Event ids are (boot << 32) | sequence, so an id handed out by an earlier run
+    // is recognised as such instead of being compared with this run's ids
+    private final long boot = (System.currentTimeMillis() / 1000) & 0x7fffffffL;
+    private final AtomicLong nextEventId = new AtomicLong(boot << 32);
+    private final Map<Long, EventRing> rings = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger streamCount = new AtomicInteger();
+    private final LongAdder droppedStreams = new LongAdder();
+    private final LongAdder timedOutWrites = new LongAdder();
+
+    // Fans events out to subscriber queues, never on the scheduler or request threads
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "reminder-event-dispatch");
+        t.setDaemon(true);
+        return t;
+    });
+    // Socket writes; a stream has at most one drain task queued or running here
+    private final ThreadPoolExecutor writers;
+    // Heartbeats and write deadlines
+    private final ScheduledThreadPoolExecutor timer;
+
+    private ReminderEventService() {
+        AtomicInteger writerCount = new AtomicInteger();
+        writers = new ThreadPoolExecutor(WRITER_THREADS, WRITER_THREADS, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "reminder-event-writer-" + writerCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "reminder-event-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        // Nearly every deadline is cancelled, so do not leave them in the queue until they expire
+        timer.setRemoveOnCancelPolicy(true);
+        timer.scheduleAtFixedRate(() -> dispatcher.execute(this::sendHeartbeats),
+            HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static ReminderEventService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a stream for a user, replaying buffered events newer than lastEventId
+     * The replay is queued on the stream and the stream registered under the
+     * ring's lock, which publish() also holds, so every event reaches it exactly
+     * once and in order: from the replay if it was buffered before, live if after.
+     * A lastEventId from an earlier run replays the whole buffer.
+     * Returns false when the stream limit has been reached
+     */
+    public boolean subscribe(Long userId, Subscriber subscriber, Long lastEventId) {
+        while (true) {
+            EventRing ring = rings.computeIfAbsent(userId, k -> new EventRing(REPLAY_BUFFER_SIZE));
+            synchronized (ring) {
+                // The buffer was dropped as idle before the lock was taken
+                if (rings.get(userId) != ring) {
+                    continue;
+                }
+                Set<Subscriber> userSubscribers =
+                    subscribers.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet());
+                synchronized (userSubscribers) {
+                    // The last stream of this user just closed and took the set out of the map
+                    if (subscribers.get(userId) != userSubscribers) {
+                        continue;
+                    }
+                    if (userSubscribers.size() >= MAX_STREAMS_PER_USER) {
+                        return false;
+                    }
+                    if (streamCount.incrementAndGet() > MAX_STREAMS) {
+                        streamCount.decrementAndGet();
+                        return false;
+                    }
+                    if (lastEventId != null) {
+                        long since = lastEventId >>> 32 == boot ? lastEventId : Long.MIN_VALUE;
+                        for (ReminderEvent event : ring.since(since)) {
+                            if (!subscriber.deliver(event)) {
+                                streamCount.decrementAndGet();
+                                subscriber.close();
+                                return true;
+                            }
+                        }
+                    }
+                    userSubscribers.add(subscriber);
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a stream and close it
+     */
+    public void unsubscribe(Long userId, Subscriber subscriber) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null) {
+            synchronized (userSubscribers) {
+                if (userSubscribers.remove(subscriber)) {
+                    streamCount.decrementAndGet();
+                }
+                if (userSubscribers.isEmpty()) {
+                    subscribers.remove(userId, userSubscribers);
+                }
+            }
+        }
+        subscriber.close();
+    }
+
+    /**
+     * Close the streams opened with a session (used on logout)
+     */
+    public void closeSession(String sessionId) {
+        for (Map.Entry<Long, Set<Subscriber>> entry : subscribers.entrySet()) {
+            for (Subscriber subscriber : entry.getValue()) {
+                if (sessionId.equals(subscriber.getSessionId())) {
+                    unsubscribe(entry.getKey(), subscriber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Close every open stream (used on shutdown so the server does not wait on them)
+     */
+    public void closeAll() {
+        for (Map.Entry<Long, Set<Subscriber>> entry : subscribers.entrySet()) {
+            for (Subscriber subscriber : entry.getValue()) {
+                unsubscribe(entry.getKey(), subscriber);
+            }
+        }
+    }
+
+    /**
+     * Number of streams currently open
+     */
+    public int getStreamCount() {
+        return streamCount.get();
+    }
+
+    /**
+     * Streams closed because their queue filled up
+     */
+    public long getDroppedStreamCount() {
+        return droppedStreams.sum();
+    }
+
+    /**
+     * Socket writes interrupted at the write deadline
+     */
+    public long getTimedOutWriteCount() {
+        return timedOutWrites.sum();
+    }
+
+    /**
+     * Scheduler callback: a dose is due now
+     */
+    @Override
+    public void onReminderDue(Reminder reminder, LocalDateTime dueAt) {
+        JsonObject data = gson.toJsonTree(reminder).getAsJsonObject();
+        data.addProperty("dueAt", dueAt.toString());
+        publish(reminder.getUserId(), ReminderEvent.TYPE_REMINDER, data.toString());
+    }
+
+    /**
+     * Notify a user's streams that one of their reminders was created, updated or deleted
+     */
+    public void publishChange(Long userId, String action, Long reminderId) {
+        JsonObject data = new JsonObject();
+        data.addProperty("action", action);
+        data.addProperty("reminderId", reminderId);
+        publish(userId, ReminderEvent.TYPE_CHANGE, data.toString());
+    }
+
+    /**
+     * Record an event in the user's replay buffer and deliver it to their open streams
+     */
+    public void publish(Long userId, String type, String data) {
+        while (true) {
+            EventRing ring = rings.computeIfAbsent(userId, k -> new EventRing(REPLAY_BUFFER_SIZE));
+            // Numbered, buffered and addressed in one step; see subscribe()
+            synchronized (ring) {
+                // The buffer was dropped as idle before the lock was taken
+                if (rings.get(userId) != ring) {
+                    continue;
+                }
+                ReminderEvent event = new ReminderEvent(nextEventId.incrementAndGet(), userId, type, data);
+                ring.add(event);
+                Set<Subscriber> userSubscribers = subscribers.get(userId);
+                if (userSubscribers == null || userSubscribers.isEmpty()) {
+                    return;
+                }
+                List<Subscriber> targets = new ArrayList<>(userSubscribers);
+                // Queued while still holding the lock, so dispatch order matches id order
+                dispatcher.execute(() -> deliverAll(userId, targets, event));
+                return;
+            }
+        }
+    }
+
+    private void deliverAll(Long userId, List<Subscriber> targets, ReminderEvent event) {
+        for (Subscriber subscriber : targets) {
+            if (!subscriber.deliver(event)) {
+                unsubscribe(userId, subscriber);
+            }
+        }
+    }
+
+    /**
+     * Heartbeat every stream whose session is still valid, close the rest, and drop idle replay buffers
+     */
+    private void sendHeartbeats() {
+        for (Map.Entry<Long, Set<Subscriber>> entry : subscribers.entrySet()) {
+            for (Subscriber subscriber : entry.getValue()) {
+                // isValidSession does not extend the session, so an open stream alone never keeps it alive
+                if (!SessionManager.isValidSession(subscriber.getSessionId()) || !subscriber.heartbeat()) {
+                    unsubscribe(entry.getKey(), subscriber);
+                }
+            }
+        }
+        long idleSince = System.currentTimeMillis() - REPLAY_RETENTION_MILLIS;
+        for (Map.Entry<Long, EventRing> entry : rings.entrySet()) {
+            EventRing ring = entry.getValue();
+            synchronized (ring) {
+                // A user with open streams keeps the buffer their reconnects replay from
+                if (ring.lastAddedAt < idleSince && !subscribers.containsKey(entry.getKey())) {
+                    rings.remove(entry.getKey(), ring);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run one socket operation, interrupting it if it outlasts the write timeout
+     * The HTTP server writes through a blocking channel, and interrupting a
+     * thread blocked on one closes the channel, so a stuck write fails with an
+     * IOException instead of hanging. Returns false if the operation failed.
+     */
+    private boolean runWithDeadline(SocketAction action) {
+        Thread thread = Thread.currentThread();
+        boolean[] finished = new boolean[1];
+        ScheduledFuture<?> deadline = timer.schedule(() -> {
+            synchronized (finished) {
+                if (!finished[0]) {
+                    timedOutWrites.increment();
+                    thread.interrupt();
+                }
+            }
+        }, WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            action.run();
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            synchronized (finished) {
+                finished[0] = true;
+            }
+            deadline.cancel(false);
+            // Clear an interrupt that landed after the operation returned
+            Thread.interrupted();
+        }
+    }
+
+    private interface SocketAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * Subscriber that queues frames and writes them from the writer pool
+     * Frames queued before open() (such as replayed events) are held until the
+     * response headers are out. A stream whose queue is full refuses the frame,
+     * which makes the service unsubscribe and close it.
+     */
+    public abstract static class QueuedStream implements Subscriber {
+        private final Long userId;
+        private final String sessionId;
+        private final ArrayDeque<byte[]> pending = new ArrayDeque<>();
+        private boolean open;
+        private boolean closed;
+        private boolean finished;
+        private boolean draining;
+
+        protected QueuedStream(Long userId, String sessionId) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        /**
+         * Write and flush one frame; called from a writer thread, one call at a time
+         */
+        protected abstract void writeFrame(byte[] frame) throws IOException;
+
+        /**
+         * End the response; called once from a writer thread after close()
+         */
+        protected abstract void finish() throws IOException;
+
+        /**
+         * Start writing queued frames; call once the response headers have been sent
+         */
+        public synchronized void open() {
+            open = true;
+            startDrainLocked();
+        }
+
+        /**
+         * Queue a frame; false if the stream is closed or its queue is full
+         */
+        protected synchronized boolean enqueue(byte[] frame) {
+            if (closed) {
+                return false;
+            }
+            if (pending.size() >= MAX_QUEUED_FRAMES) {
+                INSTANCE.droppedStreams.increment();
+                return false;
+            }
+            pending.add(frame);
+            startDrainLocked();
+            return true;
+        }
+
+        /**
+         * Discard queued frames and end the response from the writer pool
+         */
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                pending.clear();
+                startDrainLocked();
+            }
+        }
+
+        private void startDrainLocked() {
+            if (!draining && (open || closed) && !finished) {
+                draining = true;
+                INSTANCE.writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                byte[] frame;
+                synchronized (this) {
+                    frame = pending.poll();
+                    if (frame == null) {
+                        if (!closed || finished) {
+                            draining = false;
+                            return;
+                        }
+                        finished = true;
+                    }
+                }
+                if (frame == null) {
+                    INSTANCE.runWithDeadline(this::finish);
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    return;
+                }
+                if (!INSTANCE.runWithDeadline(() -> writeFrame(frame))) {
+                    INSTANCE.unsubscribe(userId, this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fixed-size circular buffer of a user's most recent events
+     */
+    private static final class EventRing {
+        private final ReminderEvent[] events;
+        private int next;
+        private int size;
+        private volatile long lastAddedAt = System.currentTimeMillis();
+
+        private EventRing(int capacity) {
+            this.events = new ReminderEvent[capacity];
+        }
+
+        private synchronized void add(ReminderEvent event) {
+            events[next] = event;
+            lastAddedAt = System.currentTimeMillis();
+            next = (next + 1) % events.length;
+            if (size < events.length) {
+                size++;
+            }
+        }
+
+        /**
+         * Buffered events with an id greater than lastEventId, oldest first
+         */
+        private synchronized List<ReminderEvent> since(long lastEventId) {
+            List<ReminderEvent> result = new ArrayList<>();
+            int start = (next - size + events.length) % events.length;
+            for (int i = 0; i < size; i++) {
+                ReminderEvent event = events[(start + i) % events.length];
+                if (event.getId() > lastEventId) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+    }
+}
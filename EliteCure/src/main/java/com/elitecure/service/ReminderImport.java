@@ -0,0 +1,117 @@
+package com.elitecure.service;
+
+import com.elitecure.dao.ReminderDAO;
+import com.elitecure.model.ImportReport;
+import com.elitecure.model.Reminder;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One bulk import in progress
+ * Rows are validated with the same rules as createReminder and buffered until
+ * elitecure.import.batchSize are waiting. Each batch is then written and
+ * committed on a connection borrowed for just that batch, so a slow upload
+ * never holds a pooled connection (or an open transaction) while it waits on
+ * the client. Invalid rows are skipped and reported; a database error stops
+ * the import and loses only the batch being written.
+ */
+public class ReminderImport implements AutoCloseable {
+    private static final int BATCH_SIZE = Integer.getInteger("elitecure.import.batchSize", 500);
+    private static final int MAX_REPORTED_ERRORS = Integer.getInteger("elitecure.import.maxReportedErrors", 100);
+
+    private final ReminderService service;
+    private final ReminderScheduler scheduler;
+    private final ReminderDAO reminderDAO;
+    private final Long userId;
+    private final ImportReport report = new ImportReport(MAX_REPORTED_ERRORS);
+    private final long startNanos = System.nanoTime();
+
+    // Validated rows waiting for the next batch
+    private final List<Reminder> pending = new ArrayList<>();
+    private boolean finished;
+
+    ReminderImport(ReminderService service, ReminderScheduler scheduler, ReminderDAO reminderDAO, Long userId) {
+        this.service = service;
+        this.scheduler = scheduler;
+        this.reminderDAO = reminderDAO;
+        this.userId = userId;
+    }
+
+    /**
+     * Validate a parsed row and queue it for insert, or record why it was rejected
+     */
+    public void add(long line, Reminder draft) throws SQLException {
+        report.rowRead();
+        try {
+            service.validateReminder(draft.getMedicineName(), draft.getDosage(), draft.getFrequency(),
+                draft.getStartDate(), draft.getEndDate(), draft.getTimeOfDay());
+        } catch (IllegalArgumentException e) {
+            report.reject(line, e.getMessage());
+            return;
+        }
+        pending.add(service.newReminder(userId, draft.getMedicineName(), draft.getDosage(), draft.getFrequency(),
+            draft.getStartDate(), draft.getEndDate(), draft.getTimeOfDay(), draft.getNotes()));
+        if (pending.size() >= BATCH_SIZE) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Record a row that could not be parsed
+     */
+    public void reject(long line, String error) {
+        report.rowRead();
+        report.reject(line, error);
+    }
+
+    /**
+     * Rows committed so far
+     */
+    public long getImported() {
+        return report.getImported();
+    }
+
+    /**
+     * Write and commit the remaining rows and return the summary
+     */
+    public ImportReport finish() throws SQLException {
+        writeBatch();
+        finished = true;
+        report.setElapsedMillis((System.nanoTime() - startNanos) / 1_000_000);
+        if (report.getImported() > 0) {
+            service.remindersChanged(userId, "created", null);
+        }
+        System.out.println("Import for user " + userId + " finished: " + report.getImported() + " imported, "
+            + report.getRejected() + " rejected in " + report.getElapsedMillis() + " ms");
+        return report;
+    }
+
+    /**
+     * Drop unwritten rows; announce the rows already committed if finish() was not reached
+     */
+    @Override
+    public void close() {
+        pending.clear();
+        if (!finished && report.getImported() > 0) {
+            service.remindersChanged(userId, "created", null);
+        }
+    }
+
+    /**
+     * Insert and commit the buffered rows in one transaction, then schedule them
+     */
+    private void writeBatch() throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        reminderDAO.createAll(pending);
+        for (Reminder reminder : pending) {
+            scheduler.schedule(reminder);
+        }
+        report.rowsImported(pending.size());
+        pending.clear();
+        System.out.println("Import for user " + userId + ": " + report.getImported() + " rows committed");
+    }
+}
@@ -0,0 +1,362 @@
+package com.elitecure.service;
+
+import com.elitecure.dao.ReminderDAO;
+import com.elitecure.model.Reminder;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory schedule of upcoming reminder doses
+ * Keeps every active reminder in a priority queue keyed on its next fire time,
+ * so due doses are found without scanning the reminders table. The schedule is
+ * loaded once at startup and kept current by ReminderService.
+ */
+public class ReminderScheduler {
+    // Upper bound on a single wait so clock changes are picked up reasonably soon
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(60);
+    // Doses found later than this (the process was suspended, the clock jumped) are dropped, not replayed
+    private static final long GRACE_MILLIS =
+        TimeUnit.MINUTES.toMillis(Long.getLong("elitecure.scheduler.graceMinutes", 10));
+
+    private static final ReminderScheduler INSTANCE = new ReminderScheduler();
+
+    /**
+     * Callback for doses that have become due
+     */
+    public interface Listener {
+        void onReminderDue(Reminder reminder, LocalDateTime dueAt);
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Map<Long, Entry> entriesById = new HashMap<>();
+    private final Map<Long, Map<Long, Entry>> entriesByUser = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Ids passed to schedule/cancel while start() reads the table; null outside the load
+    private Set<Long> touchedWhileLoading;
+    private Thread worker;
+    private volatile boolean running;
+
+    private ReminderScheduler() {}
+
+    public static ReminderScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Load the schedule from the reminders table and start dispatching due doses
+     * Reminders scheduled or cancelled while the table is being read keep that
+     * newer state; the rows read for them are skipped.
+     */
+    public void start() throws SQLException {
+        lock.lock();
+        try {
+            if (running || touchedWhileLoading != null) {
+                return;
+            }
+            touchedWhileLoading = new HashSet<>();
+        } finally {
+            lock.unlock();
+        }
+
+        List<Reminder> reminders;
+        try {
+            reminders = new ReminderDAO().findSchedulableReminders();
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                touchedWhileLoading = null;
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            for (Reminder reminder : reminders) {
+                if (!touchedWhileLoading.contains(reminder.getId())) {
+                    removeLocked(reminder.getId());
+                    scheduleLocked(reminder);
+                }
+            }
+            touchedWhileLoading = null;
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+
+        worker = new Thread(this::runLoop, "reminder-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+        System.out.println("Reminder scheduler started with " + size() + " scheduled reminders");
+    }
+
+    /**
+     * Stop dispatching; pending entries are kept but no longer fire
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Add or replace the schedule entry for a reminder
+     * Reminders that are not active or have ended are removed instead
+     */
+    public void schedule(Reminder reminder) {
+        lock.lock();
+        try {
+            if (touchedWhileLoading != null) {
+                touchedWhileLoading.add(reminder.getId());
+            }
+            removeLocked(reminder.getId());
+            scheduleLocked(reminder);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a reminder from the schedule
+     */
+    public void cancel(Long reminderId) {
+        lock.lock();
+        try {
+            if (touchedWhileLoading != null) {
+                touchedWhileLoading.add(reminderId);
+            }
+            removeLocked(reminderId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Next due dose time for a reminder, if it is scheduled
+     */
+    public Optional<LocalDateTime> getNextDue(Long reminderId) {
+        lock.lock();
+        try {
+            Entry entry = entriesById.get(reminderId);
+            return entry == null ? Optional.empty() : Optional.of(entry.dueAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The user's next due reminder and its time, if the user has anything scheduled
+     */
+    public Optional<Map.Entry<Reminder, LocalDateTime>> getNextDueForUser(Long userId) {
+        lock.lock();
+        try {
+            Map<Long, Entry> userEntries = entriesByUser.get(userId);
+            if (userEntries == null) {
+                return Optional.empty();
+            }
+            Entry next = null;
+            for (Entry entry : userEntries.values()) {
+                if (next == null || entry.compareTo(next) < 0) {
+                    next = entry;
+                }
+            }
+            return next == null ? Optional.empty() : Optional.of(Map.entry(next.reminder, next.dueAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of reminders currently scheduled
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entriesById.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Next occurrence of a reminder's timeOfDay strictly after the given instant,
+     * or null when the reminder is inactive or has ended
+     */
+    static LocalDateTime nextOccurrence(Reminder reminder, LocalDateTime after) {
+        if (!"ACTIVE".equals(reminder.getStatus()) || reminder.getTimeOfDay() == null
+                || reminder.getStartDate() == null) {
+            return null;
+        }
+        LocalDate date = after.toLocalDate();
+        if (reminder.getStartDate().isAfter(date)) {
+            date = reminder.getStartDate();
+        }
+        LocalDateTime candidate = date.atTime(reminder.getTimeOfDay());
+        if (!candidate.isAfter(after)) {
+            candidate = candidate.plusDays(1);
+        }
+        if (reminder.getEndDate() != null && candidate.toLocalDate().isAfter(reminder.getEndDate())) {
+            return null;
+        }
+        return candidate;
+    }
+
+    private void scheduleLocked(Reminder reminder) {
+        LocalDateTime dueAt = nextOccurrence(reminder, LocalDateTime.now(zone));
+        if (dueAt != null) {
+            addLocked(new Entry(reminder, dueAt, toEpochMillis(dueAt)));
+        }
+    }
+
+    private void addLocked(Entry entry) {
+        queue.add(entry);
+        entriesById.put(entry.reminder.getId(), entry);
+        entriesByUser.computeIfAbsent(entry.reminder.getUserId(), k -> new HashMap<>())
+            .put(entry.reminder.getId(), entry);
+    }
+
+    /**
+     * Drop the live entry for a reminder; its queue node is discarded lazily when polled
+     */
+    private void removeLocked(Long reminderId) {
+        Entry entry = entriesById.remove(reminderId);
+        if (entry == null) {
+            return;
+        }
+        entry.cancelled = true;
+        // Compact once cancelled nodes dominate the queue
+        if (queue.size() > 64 && queue.size() > 2 * entriesById.size()) {
+            queue.removeIf(e -> e.cancelled);
+        }
+        Map<Long, Entry> userEntries = entriesByUser.get(entry.reminder.getUserId());
+        if (userEntries != null) {
+            userEntries.remove(reminderId);
+            if (userEntries.isEmpty()) {
+                entriesByUser.remove(entry.reminder.getUserId());
+            }
+        }
+    }
+
+    private void runLoop() {
+        List<Entry> due = new ArrayList<>();
+        int skipped = 0;
+        while (running) {
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                LocalDateTime nowTime = LocalDateTime.now(zone);
+                Entry head;
+                while ((head = queue.peek()) != null && (head.cancelled || head.fireAtMillis <= now)) {
+                    queue.poll();
+                    if (head.cancelled) {
+                        continue;
+                    }
+                    if (now - head.fireAtMillis <= GRACE_MILLIS) {
+                        due.add(head);
+                    } else {
+                        skipped++;
+                    }
+                    // Re-arm from now rather than from dueAt, so missed days are not replayed one by one
+                    removeLocked(head.reminder.getId());
+                    LocalDateTime next = nextOccurrence(head.reminder,
+                        head.dueAt.isAfter(nowTime) ? head.dueAt : nowTime);
+                    if (next != null) {
+                        addLocked(new Entry(head.reminder, next, toEpochMillis(next)));
+                    }
+                }
+                if (skipped > 0) {
+                    System.err.println("Reminder scheduler fell behind; dropped " + skipped
+                        + " doses overdue by more than " + TimeUnit.MILLISECONDS.toMinutes(GRACE_MILLIS) + " minutes");
+                    skipped = 0;
+                }
+                if (due.isEmpty()) {
+                    long waitNanos = head == null ? MAX_WAIT_NANOS
+                        : Math.min(MAX_WAIT_NANOS, TimeUnit.MILLISECONDS.toNanos(head.fireAtMillis - now));
+                    changed.awaitNanos(waitNanos);
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            // Listeners run outside the lock so they can call back into the scheduler
+            for (Entry entry : due) {
+                for (Listener listener : listeners) {
+                    try {
+                        listener.onReminderDue(entry.reminder, entry.dueAt);
+                    } catch (RuntimeException e) {
+                        System.err.println("Reminder listener failed: " + e.getMessage());
+                    }
+                }
+            }
+            due.clear();
+        }
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * A reminder's next dose in the queue
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final Reminder reminder;
+        private final LocalDateTime dueAt;
+        private final long fireAtMillis;
+        private boolean cancelled;
+
+        private Entry(Reminder reminder, LocalDateTime dueAt, long fireAtMillis) {
+            this.reminder = reminder;
+            this.dueAt = dueAt;
+            this.fireAtMillis = fireAtMillis;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int cmp = Long.compare(fireAtMillis, other.fireAtMillis);
+            return cmp != 0 ? cmp : Long.compare(reminder.getId(), other.reminder.getId());
+        }
+    }
+}
@@ -1,23 +1,55 @@
 package com.elitecure.service;
 
+import com.elitecure.dao.AdherenceDAO;
 import com.elitecure.dao.ReminderDAO;
+import com.elitecure.dao.ReminderQuery;
+import com.elitecure.model.AdherenceDay;
+import com.elitecure.model.AdherenceReport;
+import com.elitecure.model.DoseEvent;
 import com.elitecure.model.Reminder;
+import com.elitecure.model.ReminderPage;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 /**
  * Service layer for Reminder-related business logic
  * Handles CRUD operations and validation for medicine reminders
  */
 public class ReminderService {
+    private static final int DEFAULT_PAGE_SIZE = Integer.getInteger("elitecure.reminders.pageSize", 100);
+    private static final int MAX_PAGE_SIZE = Integer.getInteger("elitecure.reminders.maxPageSize", 500);
+    private static final List<String> STATUSES = List.of("ACTIVE", "COMPLETED", "CANCELLED");
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("elitecure.reminders.maxBatch", 100);
+    private static final int DEFAULT_ADHERENCE_DAYS = Integer.getInteger("elitecure.adherence.defaultDays", 30);
+    private static final int MAX_ADHERENCE_DAYS = Integer.getInteger("elitecure.adherence.maxDays", 366);
+
     private final ReminderDAO reminderDAO;
+    private final AdherenceDAO adherenceDAO;
+    private final ReminderScheduler scheduler;
+    private final ReminderEventService eventService;
+    private final TodayReminderCache todayCache;
+    private final ReminderVersions versions;
+    private final DoseEventWriter doseWriter;
 
     public ReminderService() {
         this.reminderDAO = new ReminderDAO();
+        this.adherenceDAO = new AdherenceDAO();
+        this.scheduler = ReminderScheduler.getInstance();
+        this.eventService = ReminderEventService.getInstance();
+        this.todayCache = TodayReminderCache.getInstance();
+        this.versions = ReminderVersions.getInstance();
+        this.doseWriter = DoseEventWriter.getInstance();
     }
 
     /**
@@ -27,44 +59,78 @@ public class ReminderService {
                                    LocalDate startDate, LocalDate endDate, LocalTime timeOfDay, String notes) 
             throws Exception {
         
-        // Validation
-        if (medicineName == null || medicineName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Medicine name is required");
-        }
+        validateReminder(medicineName, dosage, frequency, startDate, endDate, timeOfDay);
         
-        if (dosage == null || dosage.trim().isEmpty()) {
-            throw new IllegalArgumentException("Dosage is required");
-        }
+        // Create reminder
+        Reminder reminder = newReminder(userId, medicineName, dosage, frequency, startDate, endDate, timeOfDay, notes);
         
-        if (frequency == null || frequency.trim().isEmpty()) {
-            throw new IllegalArgumentException("Frequency is required");
+        Reminder created = reminderDAO.create(reminder);
+        scheduler.schedule(created);
+        remindersChanged(userId, "created", created.getId());
+        return created;
+    }
+
+    /**
+     * Create several reminders in one transaction
+     * Every item is validated first; if any fails, nothing is written and the
+     * exception carries the error for each failing index.
+     */
+    public List<Long> createReminders(Long userId, List<Reminder> drafts) throws Exception {
+        Map<Integer, String> errors = validateReminders(drafts);
+        if (!errors.isEmpty()) {
+            throw new BatchValidationException(errors);
         }
         
-        if (startDate == null) {
-            throw new IllegalArgumentException("Start date is required");
+        List<Reminder> reminders = new ArrayList<>(drafts.size());
+        for (Reminder draft : drafts) {
+            reminders.add(newReminder(userId, draft.getMedicineName(), draft.getDosage(), draft.getFrequency(),
+                draft.getStartDate(), draft.getEndDate(), draft.getTimeOfDay(), draft.getNotes()));
         }
         
-        if (timeOfDay == null) {
-            throw new IllegalArgumentException("Time of day is required");
+        reminderDAO.createAll(reminders);
+        List<Long> ids = new ArrayList<>(reminders.size());
+        for (Reminder created : reminders) {
+            scheduler.schedule(created);
+            ids.add(created.getId());
         }
-        
-        if (endDate != null && endDate.isBefore(startDate)) {
-            throw new IllegalArgumentException("End date cannot be before start date");
+        // One change event for the whole batch
+        remindersChanged(userId, "created", null);
+        return ids;
+    }
+
+    /**
+     * Start a bulk import for a user; close it when done (see ReminderImport)
+     */
+    public ReminderImport beginImport(Long userId) {
+        return new ReminderImport(this, scheduler, reminderDAO, userId);
+    }
+
+    /**
+     * Validate a batch with the same rules as createReminder
+     * Returns an error message per failing index; null entries are skipped
+     * (the caller already reported them as unparseable).
+     */
+    public Map<Integer, String> validateReminders(List<Reminder> drafts) {
+        if (drafts.isEmpty()) {
+            throw new IllegalArgumentException("At least one reminder is required");
         }
-        
-        // Create reminder
-        Reminder reminder = new Reminder();
-        reminder.setUserId(userId);
-        reminder.setMedicineName(medicineName.trim());
-        reminder.setDosage(dosage.trim());
-        reminder.setFrequency(frequency.trim());
-        reminder.setStartDate(startDate);
-        reminder.setEndDate(endDate);
-        reminder.setTimeOfDay(timeOfDay);
-        reminder.setNotes(notes != null ? notes.trim() : "");
-        reminder.setStatus("ACTIVE");
-        
-        return reminderDAO.create(reminder);
+        if (drafts.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " reminders per batch");
+        }
+        Map<Integer, String> errors = new TreeMap<>();
+        for (int i = 0; i < drafts.size(); i++) {
+            Reminder draft = drafts.get(i);
+            if (draft == null) {
+                continue;
+            }
+            try {
+                validateReminder(draft.getMedicineName(), draft.getDosage(), draft.getFrequency(),
+                    draft.getStartDate(), draft.getEndDate(), draft.getTimeOfDay());
+            } catch (IllegalArgumentException e) {
+                errors.put(i, e.getMessage());
+            }
+        }
+        return errors;
     }
 
     /**
@@ -74,11 +140,94 @@ public class ReminderService {
         return reminderDAO.findByUserId(userId);
     }
 
+    /**
+     * Get one page of a user's reminders, optionally filtered by status and date range
+     * A missing or non-positive limit means the default page size; larger limits are capped.
+     */
+    public ReminderPage getRemindersPage(Long userId, ReminderQuery query) throws SQLException {
+        if (query.getStatus() != null && !STATUSES.contains(query.getStatus())) {
+            throw new IllegalArgumentException("Status must be one of " + String.join(", ", STATUSES));
+        }
+        if (query.getFrom() != null && query.getTo() != null && query.getTo().isBefore(query.getFrom())) {
+            throw new IllegalArgumentException("'to' cannot be before 'from'");
+        }
+        int limit = query.getLimit() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(query.getLimit(), MAX_PAGE_SIZE);
+        query.setLimit(limit);
+        
+        List<Reminder> rows = reminderDAO.findPage(userId, query);
+        if (rows.size() <= limit) {
+            return new ReminderPage(rows, null);
+        }
+        List<Reminder> page = rows.subList(0, limit);
+        Reminder last = page.get(limit - 1);
+        return new ReminderPage(page, ReminderQuery.encodeCursor(last.getTimeOfDay(), last.getId()));
+    }
+
+    /**
+     * Stream every reminder a user has to consumer, one row at a time
+     */
+    public void exportReminders(Long userId, ReminderDAO.RowConsumer consumer) throws SQLException, IOException {
+        reminderDAO.exportByUserId(userId, consumer);
+    }
+
+    /**
+     * Adherence report for a date range, from the adherence_daily rollup
+     * Defaults to the last elitecure.adherence.defaultDays days ending today.
+     */
+    public AdherenceReport getAdherence(Long userId, LocalDate from, LocalDate to) throws SQLException {
+        if (to == null) {
+            to = LocalDate.now();
+        }
+        if (from == null) {
+            from = to.minusDays(DEFAULT_ADHERENCE_DAYS - 1);
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' cannot be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_ADHERENCE_DAYS) {
+            throw new IllegalArgumentException("Date range cannot be longer than " + MAX_ADHERENCE_DAYS + " days");
+        }
+        
+        AdherenceReport report = new AdherenceReport(from, to, AdherenceRollup.getInstance().getClosedThrough());
+        for (AdherenceDay day : adherenceDAO.findDays(userId, from, to)) {
+            report.add(day);
+        }
+        return report.finish();
+    }
+
     /**
      * Get today's reminders for a user
+     * Served from TodayReminderCache; the returned list is unmodifiable
      */
     public List<Reminder> getTodayReminders(Long userId) throws SQLException {
-        return reminderDAO.findTodayReminders(userId);
+        LocalDate today = LocalDate.now();
+        List<Reminder> cached = todayCache.get(userId, today);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = todayCache.beginLoad(userId);
+        return todayCache.put(userId, today, reminderDAO.findRemindersForDate(userId, today), stamp);
+    }
+
+    /**
+     * ETag for the user's full reminder list, computed without querying
+     */
+    public String getRemindersTag(Long userId) {
+        return versions.listTag(userId);
+    }
+
+    /**
+     * ETag for one page / filter combination of the user's reminders
+     */
+    public String getRemindersTag(Long userId, String query) {
+        return versions.listTag(userId, query);
+    }
+
+    /**
+     * ETag for the user's reminders today, computed without querying
+     */
+    public String getTodayRemindersTag(Long userId) {
+        return versions.dayTag(userId, LocalDate.now());
     }
 
     /**
@@ -106,30 +255,7 @@ public class ReminderService {
             throw new IllegalArgumentException("Unauthorized to update this reminder");
         }
         
-        // Validation
-        if (medicineName == null || medicineName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Medicine name is required");
-        }
-        
-        if (dosage == null || dosage.trim().isEmpty()) {
-            throw new IllegalArgumentException("Dosage is required");
-        }
-        
-        if (frequency == null || frequency.trim().isEmpty()) {
-            throw new IllegalArgumentException("Frequency is required");
-        }
-        
-        if (startDate == null) {
-            throw new IllegalArgumentException("Start date is required");
-        }
-        
-        if (timeOfDay == null) {
-            throw new IllegalArgumentException("Time of day is required");
-        }
-        
-        if (endDate != null && endDate.isBefore(startDate)) {
-            throw new IllegalArgumentException("End date cannot be before start date");
-        }
+        validateReminder(medicineName, dosage, frequency, startDate, endDate, timeOfDay);
         
         // Update reminder
         existing.setMedicineName(medicineName.trim());
@@ -141,7 +267,12 @@ public class ReminderService {
         existing.setNotes(notes != null ? notes.trim() : "");
         existing.setStatus(status != null ? status : "ACTIVE");
         
-        return reminderDAO.update(existing);
+        boolean updated = reminderDAO.update(existing);
+        if (updated) {
+            scheduler.schedule(existing);
+            remindersChanged(userId, "updated", reminderId);
+        }
+        return updated;
     }
 
     /**
@@ -159,13 +290,26 @@ public class ReminderService {
             throw new IllegalArgumentException("Unauthorized to delete this reminder");
         }
         
-        return reminderDAO.delete(reminderId);
+        boolean deleted = reminderDAO.delete(reminderId);
+        if (deleted) {
+            scheduler.cancel(reminderId);
+            remindersChanged(userId, "deleted", reminderId);
+        }
+        return deleted;
     }
 
     /**
-     * Mark reminder as taken
+     * Record that the user took (or skipped) a dose of a reminder
+     * The reminder stays active; the event is appended to the dose log through
+     * DoseEventWriter's write-behind queue. scheduledAt may be null to mean the
+     * dose time nearest to now; otherwise it must be one of the reminder's dose
+     * times. Repeats for a dose that is already logged are dropped by the writer.
      */
-    public boolean markAsTaken(Long reminderId, Long userId) throws Exception {
+    public DoseEvent recordDose(Long reminderId, Long userId, String action, LocalDateTime scheduledAt)
+            throws Exception {
+        if (!DoseEvent.TAKEN.equals(action) && !DoseEvent.SKIPPED.equals(action)) {
+            throw new IllegalArgumentException("Action must be TAKEN or SKIPPED");
+        }
         Optional<Reminder> existingOpt = reminderDAO.findById(reminderId);
         if (existingOpt.isEmpty()) {
             throw new IllegalArgumentException("Reminder not found");
@@ -175,8 +319,128 @@ public class ReminderService {
         if (!existing.getUserId().equals(userId)) {
             throw new IllegalArgumentException("Unauthorized to update this reminder");
         }
+        if (!"ACTIVE".equals(existing.getStatus())) {
+            throw new IllegalArgumentException("Reminder is not active");
+        }
         
-        existing.setStatus("COMPLETED");
-        return reminderDAO.update(existing);
+        LocalDateTime now = LocalDateTime.now();
+        if (scheduledAt != null && !isDoseTime(existing, scheduledAt)) {
+            throw new IllegalArgumentException("scheduledAt is not a dose time of this reminder");
+        }
+        DoseEvent event = new DoseEvent(reminderId, userId,
+            scheduledAt != null ? scheduledAt : nearestDose(existing, now), now, action);
+        doseWriter.record(event);
+        // The reminder itself is unchanged, so no version bump; other tabs still hear about it
+        eventService.publishChange(userId, "taken", reminderId);
+        return event;
+    }
+
+    /**
+     * The reminder's dose time closest to now: today's, yesterday's or tomorrow's,
+     * so marking a little early or after midnight still finds the right dose
+     */
+    private LocalDateTime nearestDose(Reminder reminder, LocalDateTime now) {
+        LocalDateTime today = now.toLocalDate().atTime(reminder.getTimeOfDay());
+        LocalDateTime nearest = today;
+        for (LocalDateTime candidate : List.of(today.minusDays(1), today.plusDays(1))) {
+            if (Math.abs(Duration.between(candidate, now).toMinutes())
+                    < Math.abs(Duration.between(nearest, now).toMinutes())) {
+                nearest = candidate;
+            }
+        }
+        if (nearest.toLocalDate().isBefore(reminder.getStartDate())) {
+            nearest = reminder.getStartDate().atTime(reminder.getTimeOfDay());
+        }
+        return nearest;
+    }
+
+    /**
+     * Whether the reminder has a dose at exactly this time: its time of day, within its date range
+     */
+    private boolean isDoseTime(Reminder reminder, LocalDateTime time) {
+        LocalDate date = time.toLocalDate();
+        return time.toLocalTime().equals(reminder.getTimeOfDay())
+            && !date.isBefore(reminder.getStartDate())
+            && (reminder.getEndDate() == null || !date.isAfter(reminder.getEndDate()));
+    }
+
+    /**
+     * Field rules shared by create, update and batch create
+     */
+    void validateReminder(String medicineName, String dosage, String frequency,
+                           LocalDate startDate, LocalDate endDate, LocalTime timeOfDay) {
+        if (medicineName == null || medicineName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Medicine name is required");
+        }
+        
+        if (dosage == null || dosage.trim().isEmpty()) {
+            throw new IllegalArgumentException("Dosage is required");
+        }
+        
+        if (frequency == null || frequency.trim().isEmpty()) {
+            throw new IllegalArgumentException("Frequency is required");
+        }
+        
+        if (startDate == null) {
+            throw new IllegalArgumentException("Start date is required");
+        }
+        
+        if (timeOfDay == null) {
+            throw new IllegalArgumentException("Time of day is required");
+        }
+        
+        if (endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+    }
+
+    Reminder newReminder(Long userId, String medicineName, String dosage, String frequency,
+                         LocalDate startDate, LocalDate endDate, LocalTime timeOfDay, String notes) {
+        Reminder reminder = new Reminder();
+        reminder.setUserId(userId);
+        reminder.setMedicineName(medicineName.trim());
+        reminder.setDosage(dosage.trim());
+        reminder.setFrequency(frequency.trim());
+        reminder.setStartDate(startDate);
+        reminder.setEndDate(endDate);
+        reminder.setTimeOfDay(timeOfDay);
+        reminder.setNotes(notes != null ? notes.trim() : "");
+        reminder.setStatus("ACTIVE");
+        return reminder;
+    }
+
+    /**
+     * Invalidate cached data and ETags for the user and notify their open streams
+     * Must run after the write has been committed
+     */
+    void remindersChanged(Long userId, String action, Long reminderId) {
+        // Order matters: a poll between a bump and an invalidate would pair the new
+        // ETag with the stale cached list, and the client would keep getting 304s for
+        // it. Invalidated first, a poll sees the old tag (fine to refresh later) or
+        // loads fresh data; a load begun before the invalidate is refused by the cache.
+        todayCache.invalidate(userId);
+        versions.bump(userId);
+        eventService.publishChange(userId, action, reminderId);
+    }
+
+    /**
+     * Per-item validation failures of a batch; nothing was written
+     */
+    public static class BatchValidationException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<Integer, String> errors;
+
+        public BatchValidationException(Map<Integer, String> errors) {
+            super(errors.size() + " of the reminders are invalid");
+            this.errors = errors;
+        }
+
+        /**
+         * Error message by item index
+         */
+        public Map<Integer, String> getErrors() {
+            return errors;
+        }
     }
 }
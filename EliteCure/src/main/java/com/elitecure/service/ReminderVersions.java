@@ -0,0 +1,82 @@
+package com.elitecure.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user version counter for reminder data, bumped on every write
+ * Lets the reminder list endpoints build an ETag without running the query.
+ * Counters live in memory, so every tag also carries a random boot id to
+ * keep tags from one process run from matching the next. Tags are weak
+ * because the same list may be sent gzip-encoded or as-is.
+ */
+public class ReminderVersions {
+    private static final ReminderVersions INSTANCE = new ReminderVersions();
+
+    private final String bootId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private ReminderVersions() {}
+
+    public static ReminderVersions getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Current version of the user's reminders
+     */
+    public long current(Long userId) {
+        AtomicLong version = versions.get(userId);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Record a change to the user's reminders
+     */
+    public void bump(Long userId) {
+        versions.computeIfAbsent(userId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * ETag for the user's full reminder list
+     */
+    public String listTag(Long userId) {
+        return "W/\"r-" + bootId + "-" + userId + "-" + current(userId) + "\"";
+    }
+
+    /**
+     * ETag for one page or filtered view of the user's reminder list
+     * The query goes in as a SHA-256 digest: a shorter hash would let two
+     * different pages share a tag and answer one with the other's 304.
+     */
+    public String listTag(Long userId, String query) {
+        if (query == null || query.isEmpty()) {
+            return listTag(userId);
+        }
+        return "W/\"r-" + bootId + "-" + userId + "-" + current(userId) + "-" + digest(query) + "\"";
+    }
+
+    /**
+     * ETag for the user's reminders on a given date
+     */
+    public String dayTag(Long userId, LocalDate date) {
+        return "W/\"d-" + bootId + "-" + userId + "-" + current(userId) + "-" + date + "\"";
+    }
+
+    private static String digest(String query) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
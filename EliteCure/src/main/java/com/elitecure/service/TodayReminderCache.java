@@ -0,0 +1,232 @@
+package com.elitecure.service;
+
+import com.elitecure.model.Reminder;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of each user's reminders for today, keyed by (userId, date)
+ * Entries expire after a TTL, the least recently used entry is evicted when
+ * the cache is full, and everything from the previous day is dropped at the
+ * first access after midnight. ReminderService invalidates a user's entry on
+ * every write, and a load that raced with a write is never stored.
+ */
+public class TodayReminderCache {
+    private static final int MAX_ENTRIES = Integer.getInteger("elitecure.cache.today.maxEntries", 10000);
+    private static final long TTL_NANOS =
+        TimeUnit.SECONDS.toNanos(Long.getLong("elitecure.cache.today.ttlSeconds", 300));
+
+    private static final TodayReminderCache INSTANCE = new TodayReminderCache(MAX_ENTRIES, TTL_NANOS);
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    // Bumped on every invalidation so an in-flight load can tell its result is stale
+    private final Map<Long, AtomicLong> userStamps = new ConcurrentHashMap<>();
+    private LocalDate currentDate = LocalDate.now();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    TodayReminderCache(int maxEntries, long ttlNanos) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > TodayReminderCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static TodayReminderCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Cached reminders for the user on the given date, or null on a miss
+     */
+    public List<Reminder> get(Long userId, LocalDate date) {
+        synchronized (entries) {
+            rollOver(date);
+            Key key = new Key(userId, date);
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.reminders;
+        }
+    }
+
+    /**
+     * Stamp to pass to put() for a load that starts now
+     */
+    public long beginLoad(Long userId) {
+        return userStamps.computeIfAbsent(userId, k -> new AtomicLong()).get();
+    }
+
+    /**
+     * Store a loaded list unless the user's reminders changed since beginLoad()
+     * Returns the list as stored (unmodifiable)
+     */
+    public List<Reminder> put(Long userId, LocalDate date, List<Reminder> reminders, long stamp) {
+        List<Reminder> value = Collections.unmodifiableList(reminders);
+        synchronized (entries) {
+            rollOver(date);
+            if (date.equals(currentDate) && beginLoad(userId) == stamp) {
+                entries.put(new Key(userId, date), new Entry(value, System.nanoTime()));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drop the user's cached lists; called after any write to their reminders
+     */
+    public void invalidate(Long userId) {
+        userStamps.computeIfAbsent(userId, k -> new AtomicLong()).incrementAndGet();
+        synchronized (entries) {
+            if (entries.remove(new Key(userId, currentDate)) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Remove everything
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), size);
+    }
+
+    /**
+     * Drop all entries once the calendar day has moved on
+     */
+    private void rollOver(LocalDate date) {
+        if (date.isAfter(currentDate)) {
+            evictions.add(entries.size());
+            entries.clear();
+            currentDate = date;
+        }
+    }
+
+    private static final class Key {
+        private final Long userId;
+        private final LocalDate date;
+
+        private Key(Long userId, LocalDate date) {
+            this.userId = userId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return userId.equals(other.userId) && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, date);
+        }
+    }
+
+    private static final class Entry {
+        private final List<Reminder> reminders;
+        private final long loadedAt;
+
+        private Entry(List<Reminder> reminders, long loadedAt) {
+            this.reminders = reminders;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Cache counters
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", invalidations=" + invalidations +
+                    ", size=" + size +
+                    '}';
+        }
+    }
+}
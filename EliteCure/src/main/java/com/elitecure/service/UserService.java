@@ -2,7 +2,6 @@ package com.elitecure.service;
 
 import com.elitecure.dao.UserDAO;
 import com.elitecure.model.User;
-import org.mindrot.jbcrypt.BCrypt;
 
 import java.sql.SQLException;
 import java.util.Optional;
@@ -14,6 +13,7 @@ import java.util.regex.Pattern;
  */
 public class UserService {
     private final UserDAO userDAO;
+    private final PasswordHasher passwordHasher;
     
     private static final Pattern EMAIL_PATTERN = 
         Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
@@ -22,6 +22,7 @@ public class UserService {
 
     public UserService() {
         this.userDAO = new UserDAO();
+        this.passwordHasher = PasswordHasher.getInstance();
     }
 
     /**
@@ -56,8 +57,8 @@ public class UserService {
             throw new IllegalArgumentException("Email already registered");
         }
         
-        // Hash password
-        String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
+        // Hash password (on the hashing pool; throws BusyException when it is saturated)
+        String hashedPassword = passwordHasher.hash(password);
         
         // Create user
         User user = new User();
@@ -89,10 +90,16 @@ public class UserService {
         User user = userOpt.get();
         
         // Verify password
-        if (!BCrypt.checkpw(password, user.getPasswordHash())) {
+        if (!passwordHasher.verify(password, user.getPasswordHash())) {
             throw new IllegalArgumentException("Invalid email or password");
         }
         
+        // Upgrade hashes made with an older work factor, without making this login wait
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            Long userId = user.getId();
+            passwordHasher.rehashAsync(password, newHash -> userDAO.updatePasswordHash(userId, newHash));
+        }
+        
         return user;
     }
 
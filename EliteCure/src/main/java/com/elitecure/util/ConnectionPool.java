@@ -0,0 +1,710 @@
+package com.elitecure.util;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Small JDBC connection pool used behind DatabaseUtil.getConnection()
+ * Keeps between minSize and maxSize physical connections open, hands out
+ * proxies whose close() returns the connection to the pool, validates idle
+ * connections before reuse and reports connections held for too long
+ *
+ * Each connection also keeps up to statementCacheSize prepared statements open,
+ * keyed by SQL text and evicted least recently used first. prepareStatement(sql)
+ * checks one out of the cache and close() puts it back, so a statement the DAOs
+ * run on every request is parsed and planned once per connection, not per call.
+ */
+public class ConnectionPool implements DataSource {
+
+    /** Upper bounds (in milliseconds) of the acquire wait-time histogram buckets */
+    public static final long[] WAIT_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    // Capturing a stack trace on every borrow is expensive, so it is opt-in
+    private static final boolean CAPTURE_LEAK_STACKS = Boolean.getBoolean("elitecure.db.pool.leakStacks");
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long validationIntervalMs;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private int totalCount;
+    private int waiterCount;
+    private boolean closed;
+
+    // The last bucket counts waits longer than the largest bound
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(WAIT_BUCKETS_MS.length + 1);
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long acquireTimeoutMs, long validationIntervalMs, long leakThresholdMs,
+                          int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        if (leakThresholdMs > 0) {
+            long period = Math.max(1000, leakThresholdMs / 2);
+            housekeeper.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        }
+        housekeeper.scheduleAtFixedRate(this::fillToMinimum, 0, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the acquire timeout when the pool is exhausted
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+        PooledConnection pooled;
+        // Retried against the same deadline when a borrowed idle connection proves dead
+        while (true) {
+            pooled = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (pooled == null && !create) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    if (!idle.isEmpty()) {
+                        pooled = idle.pollFirst();
+                    } else if (totalCount < maxSize) {
+                        totalCount++;
+                        create = true;
+                    } else {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            timeoutCount.incrementAndGet();
+                            // Transient: the same call can succeed once a connection is returned
+                            throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMs
+                                + " ms waiting for a database connection (active=" + borrowed.size()
+                                + ", max=" + maxSize + ")");
+                        }
+                        waiterCount++;
+                        try {
+                            available.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Interrupted while waiting for a database connection", e);
+                        } finally {
+                            waiterCount--;
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Physical I/O (open / validate) happens outside the lock
+            if (create) {
+                try {
+                    pooled = new PooledConnection(openPhysical());
+                } catch (SQLException e) {
+                    discard();
+                    throw e;
+                }
+                break;
+            }
+            if (isUsable(pooled)) {
+                break;
+            }
+            closeQuietly(pooled.physical);
+            discard();
+        }
+
+        recordWait(System.nanoTime() - start);
+        pooled.borrowedAt = System.currentTimeMillis();
+        pooled.borrowThread = Thread.currentThread().getName();
+        pooled.borrowSite = CAPTURE_LEAK_STACKS ? new Throwable("Connection acquired here") : null;
+        borrowed.add(pooled);
+        return pooled.newHandle();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool is bound to a single set of credentials");
+    }
+
+    /**
+     * Close every idle connection and refuse further borrows
+     * Connections currently in use are closed when they are returned
+     */
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            totalCount -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pooled : toClose) {
+            closeQuietly(pooled.physical);
+        }
+    }
+
+    /**
+     * Snapshot of the pool counters
+     */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            long[] histogram = new long[waitHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = waitHistogram.get(i);
+            }
+            return new Stats(borrowed.size(), idle.size(), waiterCount, totalCount, maxSize,
+                acquireCount.get(), timeoutCount.get(), leakCount.get(),
+                totalWaitNanos.get(), histogram, statementHits.get(), statementMisses.get(),
+                statementEvictions.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Validate a connection that has been idle longer than the validation interval
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pooled.returnedAt < validationIntervalMs) {
+                return true;
+            }
+            return pooled.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return a connection to the idle deque, resetting any state the borrower changed
+     */
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        boolean healthy;
+        try {
+            healthy = !pooled.physical.isClosed();
+            if (healthy && !pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        lock.lock();
+        try {
+            if (healthy && !closed) {
+                pooled.returnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pooled.physical);
+        discard();
+    }
+
+    /**
+     * Drop a slot from the total count so a waiter can open a fresh connection
+     */
+    private void discard() {
+        lock.lock();
+        try {
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || totalCount >= minSize) {
+                    return;
+                }
+                totalCount++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                PooledConnection pooled = new PooledConnection(openPhysical());
+                pooled.returnedAt = System.currentTimeMillis();
+                lock.lock();
+                try {
+                    idle.offerLast(pooled);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                discard();
+                System.err.println("Error pre-filling connection pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMs) {
+                pooled.leakReported = true;
+                leakCount.incrementAndGet();
+                System.err.println("Possible connection leak: connection held for "
+                    + (now - pooled.borrowedAt) + " ms by thread " + pooled.borrowThread);
+                if (pooled.borrowSite != null) {
+                    pooled.borrowSite.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        acquireCount.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS_MS.length && millis > WAIT_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        waitHistogram.incrementAndGet(bucket);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * A physical connection plus its borrow bookkeeping
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long returnedAt;
+        private volatile String borrowThread;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        // Idle prepared statements by SQL, least recently returned first; guarded by itself
+        private final Map<String, PreparedStatement> statements;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    statementEvictions.incrementAndGet();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        /**
+         * Check out the cached statement for sql, preparing one on a miss
+         * A checked-out statement is not in the cache, so two open statements
+         * for the same SQL never share parameters or result sets.
+         */
+        private PreparedStatement prepareCached(String sql) throws SQLException {
+            PreparedStatement stmt;
+            synchronized (statements) {
+                stmt = statements.remove(sql);
+            }
+            if (stmt != null && !stmt.isClosed()) {
+                statementHits.incrementAndGet();
+            } else {
+                statementMisses.incrementAndGet();
+                stmt = physical.prepareStatement(sql);
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedStatement(this, sql, stmt));
+        }
+
+        /**
+         * Put a closed-by-the-caller statement back, most recently used
+         */
+        private void returnStatement(String sql, PreparedStatement stmt) {
+            PreparedStatement displaced;
+            synchronized (statements) {
+                displaced = statements.put(sql, stmt);
+            }
+            // Another statement for the same SQL was returned while this one was out
+            if (displaced != null) {
+                closeQuietly(displaced);
+            }
+        }
+
+        /**
+         * Each borrow gets its own proxy so a stale handle cannot touch the next borrower's work
+         */
+        private Connection newHandle() {
+            leakReported = false;
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Handle(this));
+        }
+    }
+
+    /**
+     * Proxy handler that turns close() into a return to the pool
+     */
+    private final class Handle implements InvocationHandler {
+        private PooledConnection pooled;
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (pooled != null) {
+                        PooledConnection toRelease = pooled;
+                        pooled = null;
+                        release(toRelease);
+                    }
+                    return null;
+                case "isClosed":
+                    return pooled == null || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pooled == null ? "closed" : pooled.physical) + "]";
+                default:
+                    break;
+            }
+            if (pooled == null) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            Object result;
+            if (statementCacheSize > 0 && "prepareStatement".equals(name) && args.length == 1) {
+                result = pooled.prepareCached((String) args[0]);
+            } else {
+                try {
+                    result = method.invoke(pooled.physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Proxy handler that returns a prepared statement to its connection's cache on close()
+     * Parameters and batches are cleared on the way back. A statement whose
+     * options were changed (fetch size, max rows, timeout...) is closed instead,
+     * so the next caller never inherits them.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        private final PooledConnection owner;
+        private final String sql;
+        private final PreparedStatement statement;
+        private boolean returned;
+        private boolean optionsChanged;
+
+        private CachedStatement(PooledConnection owner, String sql, PreparedStatement statement) {
+            this.owner = owner;
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + (returned ? "closed" : statement) + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Statement has been closed");
+            }
+            if (name.startsWith("set") && method.getDeclaringClass() == Statement.class) {
+                optionsChanged = true;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void giveBack() {
+            try {
+                if (optionsChanged || statement.isClosed() || owner.physical.isClosed()) {
+                    statement.close();
+                    return;
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                closeQuietly(statement);
+                return;
+            }
+            owner.returnStatement(sql, statement);
+        }
+    }
+
+    /**
+     * Immutable point-in-time view of the pool
+     */
+    public static class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiters;
+        private final int total;
+        private final int maxSize;
+        private final long acquireCount;
+        private final long timeoutCount;
+        private final long leakCount;
+        private final long totalWaitNanos;
+        private final long[] waitHistogram;
+        private final long statementHits;
+        private final long statementMisses;
+        private final long statementEvictions;
+
+        Stats(int active, int idle, int waiters, int total, int maxSize, long acquireCount,
+              long timeoutCount, long leakCount, long totalWaitNanos, long[] waitHistogram,
+              long statementHits, long statementMisses, long statementEvictions) {
+            this.active = active;
+            this.idle = idle;
+            this.waiters = waiters;
+            this.total = total;
+            this.maxSize = maxSize;
+            this.acquireCount = acquireCount;
+            this.timeoutCount = timeoutCount;
+            this.leakCount = leakCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.waitHistogram = waitHistogram;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+            this.statementEvictions = statementEvictions;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getWaiters() {
+            return waiters;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getAcquireCount() {
+            return acquireCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public long getLeakCount() {
+            return leakCount;
+        }
+
+        public long getTotalWaitNanos() {
+            return totalWaitNanos;
+        }
+
+        /**
+         * Counts per bucket of WAIT_BUCKETS_MS, with one extra overflow bucket at the end
+         */
+        public long[] getWaitHistogram() {
+            return waitHistogram.clone();
+        }
+
+        public long getStatementHits() {
+            return statementHits;
+        }
+
+        public long getStatementMisses() {
+            return statementMisses;
+        }
+
+        public long getStatementEvictions() {
+            return statementEvictions;
+        }
+
+        /**
+         * Share of prepareStatement calls served from the statement cache, 0 before any
+         */
+        public double getStatementHitRate() {
+            long lookups = statementHits + statementMisses;
+            return lookups == 0 ? 0 : (double) statementHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "active=" + active +
+                    ", idle=" + idle +
+                    ", waiters=" + waiters +
+                    ", total=" + total +
+                    ", max=" + maxSize +
+                    ", acquired=" + acquireCount +
+                    ", timeouts=" + timeoutCount +
+                    ", leaks=" + leakCount +
+                    ", statementHits=" + statementHits +
+                    ", statementMisses=" + statementMisses +
+                    '}';
+        }
+    }
+}
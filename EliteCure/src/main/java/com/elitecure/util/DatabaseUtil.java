@@ -1,74 +1,93 @@
 package com.elitecure.util;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import javax.sql.DataSource;
 
 /**
  * Database connection utility for H2 database
- * Manages database connection and initialization
+ * Manages the connection pool and database initialization
  */
 public class DatabaseUtil {
-    private static final String DB_URL = "jdbc:h2:./data/elitecure;AUTO_SERVER=TRUE";
+    private static final String DB_URL =
+        System.getProperty("elitecure.db.url", "jdbc:h2:./data/elitecure;AUTO_SERVER=TRUE");
     private static final String DB_USER = "sa";
     private static final String DB_PASSWORD = "";
 
+    // Pool settings, overridable with -Delitecure.db.pool.* system properties
+    private static final int POOL_MIN_SIZE = Integer.getInteger("elitecure.db.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("elitecure.db.pool.maxSize", 10);
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = Long.getLong("elitecure.db.pool.acquireTimeoutMs", 5000);
+    private static final long POOL_VALIDATION_INTERVAL_MS = Long.getLong("elitecure.db.pool.validationIntervalMs", 30000);
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("elitecure.db.pool.leakThresholdMs", 60000);
+    private static final int POOL_STATEMENT_CACHE_SIZE = Integer.getInteger("elitecure.db.pool.statementCacheSize", 64);
+
+    private static final ConnectionPool pool;
+    private static final SchemaMigrator.Result migrationResult;
+
     static {
         try {
             // Load H2 driver
             Class.forName("org.h2.Driver");
-            // Initialize database schema
-            initializeDatabase();
         } catch (ClassNotFoundException e) {
             throw new RuntimeException("Failed to load H2 driver", e);
         }
+        pool = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE,
+            POOL_ACQUIRE_TIMEOUT_MS, POOL_VALIDATION_INTERVAL_MS, POOL_LEAK_THRESHOLD_MS,
+            POOL_STATEMENT_CACHE_SIZE);
+        // Initialize database schema
+        migrationResult = initializeDatabase();
     }
 
     /**
-     * Get a database connection
+     * Get a pooled database connection
+     * Closing the returned connection hands it back to the pool
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        return pool.getConnection();
     }
 
     /**
-     * Initialize database schema from SQL file
+     * Get the pooled DataSource backing getConnection()
      */
-    private static void initializeDatabase() {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            // Read and execute schema.sql
-            InputStream is = DatabaseUtil.class.getClassLoader().getResourceAsStream("schema.sql");
-            if (is != null) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-                StringBuilder sql = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    // Skip comments and empty lines
-                    line = line.trim();
-                    if (line.isEmpty() || line.startsWith("--")) {
-                        continue;
-                    }
-                    sql.append(line).append(" ");
-                    
-                    // Execute when we hit a semicolon
-                    if (line.endsWith(";")) {
-                        stmt.execute(sql.toString());
-                        sql = new StringBuilder();
-                    }
-                }
-                
-                reader.close();
-                System.out.println("Database initialized successfully!");
-            }
+    public static DataSource getDataSource() {
+        return pool;
+    }
+
+    /**
+     * Get current connection pool statistics
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Close all pooled connections (used on shutdown)
+     */
+    public static void shutdown() {
+        pool.close();
+    }
+
+    /**
+     * Schema version and migration timing from startup
+     */
+    public static SchemaMigrator.Result getMigrationResult() {
+        return migrationResult;
+    }
+
+    /**
+     * Bring the schema up to date with the versioned migrations (see SchemaMigrator)
+     * A failed migration stops startup rather than running on a half-built schema.
+     */
+    private static SchemaMigrator.Result initializeDatabase() {
+        try (Connection conn = getConnection()) {
+            SchemaMigrator.Result result = SchemaMigrator.migrate(conn);
+            System.out.println("Database schema at version " + result.getVersion() + " (" + result.getApplied()
+                + " migrations applied, " + result.getElapsedMillis() + " ms)");
+            return result;
         } catch (Exception e) {
             System.err.println("Error initializing database: " + e.getMessage());
+            throw new IllegalStateException("Database migration failed", e);
         }
     }
 
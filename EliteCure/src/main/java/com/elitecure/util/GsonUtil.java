@@ -1,16 +1,23 @@
 package com.elitecure.util;
 
+import com.elitecure.model.Reminder;
+import com.elitecure.model.User;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
 
 /**
  * Utility class for creating Gson instance with Java 8 Date/Time support
+ * All adapters are streaming TypeAdapters, so serialization writes straight
+ * to the JsonWriter without building a JsonElement tree or using reflection.
  */
 public class GsonUtil {
     
@@ -24,28 +31,146 @@ public class GsonUtil {
     }
     
     /**
-     * Create Gson with custom adapters for LocalDate, LocalTime, LocalDateTime
+     * Create Gson with custom adapters for the models and LocalDate, LocalTime, LocalDateTime
      */
     private static Gson createGson() {
         return new GsonBuilder()
-            .registerTypeAdapter(LocalDate.class, 
-                (JsonSerializer<LocalDate>) (src, typeOfSrc, context) -> 
-                    context.serialize(src.toString()))
-            .registerTypeAdapter(LocalDate.class,
-                (JsonDeserializer<LocalDate>) (json, typeOfT, context) ->
-                    LocalDate.parse(json.getAsString()))
-            .registerTypeAdapter(LocalTime.class,
-                (JsonSerializer<LocalTime>) (src, typeOfSrc, context) ->
-                    context.serialize(src.toString()))
-            .registerTypeAdapter(LocalTime.class,
-                (JsonDeserializer<LocalTime>) (json, typeOfT, context) ->
-                    LocalTime.parse(json.getAsString()))
-            .registerTypeAdapter(LocalDateTime.class,
-                (JsonSerializer<LocalDateTime>) (src, typeOfSrc, context) ->
-                    context.serialize(src.toString()))
-            .registerTypeAdapter(LocalDateTime.class,
-                (JsonDeserializer<LocalDateTime>) (json, typeOfT, context) ->
-                    LocalDateTime.parse(json.getAsString()))
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter().nullSafe())
+            .registerTypeAdapter(LocalTime.class, new LocalTimeAdapter().nullSafe())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter().nullSafe())
+            .registerTypeAdapter(Reminder.class, new ReminderAdapter().nullSafe())
+            .registerTypeAdapter(User.class, new UserAdapter().nullSafe())
             .create();
     }
+    
+    private static final class LocalDateAdapter extends TypeAdapter<LocalDate> {
+        @Override
+        public void write(JsonWriter out, LocalDate value) throws IOException {
+            out.value(value.toString());
+        }
+    
+        @Override
+        public LocalDate read(JsonReader in) throws IOException {
+            return LocalDate.parse(in.nextString());
+        }
+    }
+    
+    private static final class LocalTimeAdapter extends TypeAdapter<LocalTime> {
+        @Override
+        public void write(JsonWriter out, LocalTime value) throws IOException {
+            out.value(value.toString());
+        }
+    
+        @Override
+        public LocalTime read(JsonReader in) throws IOException {
+            return LocalTime.parse(in.nextString());
+        }
+    }
+    
+    private static final class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            out.value(value.toString());
+        }
+    
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            return LocalDateTime.parse(in.nextString());
+        }
+    }
+    
+    /**
+     * Reminder in field declaration order; null fields are left out like the reflective adapter did
+     */
+    private static final class ReminderAdapter extends TypeAdapter<Reminder> {
+        @Override
+        public void write(JsonWriter out, Reminder reminder) throws IOException {
+            out.beginObject();
+            out.name("id").value(reminder.getId());
+            out.name("userId").value(reminder.getUserId());
+            out.name("medicineName").value(reminder.getMedicineName());
+            out.name("dosage").value(reminder.getDosage());
+            out.name("frequency").value(reminder.getFrequency());
+            writeString(out, "startDate", reminder.getStartDate());
+            writeString(out, "endDate", reminder.getEndDate());
+            writeString(out, "timeOfDay", reminder.getTimeOfDay());
+            out.name("notes").value(reminder.getNotes());
+            out.name("status").value(reminder.getStatus());
+            writeString(out, "createdAt", reminder.getCreatedAt());
+            out.endObject();
+        }
+    
+        @Override
+        public Reminder read(JsonReader in) throws IOException {
+            Reminder reminder = new Reminder();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id": reminder.setId(in.nextLong()); break;
+                    case "userId": reminder.setUserId(in.nextLong()); break;
+                    case "medicineName": reminder.setMedicineName(in.nextString()); break;
+                    case "dosage": reminder.setDosage(in.nextString()); break;
+                    case "frequency": reminder.setFrequency(in.nextString()); break;
+                    case "startDate": reminder.setStartDate(LocalDate.parse(in.nextString())); break;
+                    case "endDate": reminder.setEndDate(LocalDate.parse(in.nextString())); break;
+                    case "timeOfDay": reminder.setTimeOfDay(LocalTime.parse(in.nextString())); break;
+                    case "notes": reminder.setNotes(in.nextString()); break;
+                    case "status": reminder.setStatus(in.nextString()); break;
+                    case "createdAt": reminder.setCreatedAt(LocalDateTime.parse(in.nextString())); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return reminder;
+        }
+    }
+    
+    /**
+     * User without the password hash, which never leaves the server
+     */
+    private static final class UserAdapter extends TypeAdapter<User> {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("id").value(user.getId());
+            out.name("fullName").value(user.getFullName());
+            out.name("email").value(user.getEmail());
+            writeString(out, "createdAt", user.getCreatedAt());
+            out.endObject();
+        }
+    
+        @Override
+        public User read(JsonReader in) throws IOException {
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id": user.setId(in.nextLong()); break;
+                    case "fullName": user.setFullName(in.nextString()); break;
+                    case "email": user.setEmail(in.nextString()); break;
+                    case "createdAt": user.setCreatedAt(LocalDateTime.parse(in.nextString())); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
+    
+    /**
+     * Write a date/time value as its ISO string, or null
+     */
+    private static void writeString(JsonWriter out, String name, Object value) throws IOException {
+        out.name(name).value(value == null ? null : value.toString());
+    }
 }
@@ -0,0 +1,116 @@
+package com.elitecure.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the executor that runs HttpServer request handlers
+ * Without an executor every request runs on the server's single dispatcher
+ * thread, so one slow login or query stalls all other users
+ *
+ * Modes (system property elitecure.http.executor):
+ *   pool       - bounded platform thread pool with a bounded queue (default)
+ *   virtual    - one virtual thread per request (Java 21+, falls back to pool)
+ *   dispatcher - legacy behaviour, run on the dispatcher thread
+ */
+public class HttpExecutors {
+    public static final String MODE_POOL = "pool";
+    public static final String MODE_VIRTUAL = "virtual";
+    public static final String MODE_DISPATCHER = "dispatcher";
+
+    private static final int POOL_THREADS =
+        Integer.getInteger("elitecure.http.poolThreads", Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    private static final int QUEUE_LIMIT = Integer.getInteger("elitecure.http.queueLimit", 256);
+
+    private HttpExecutors() {}
+
+    /**
+     * Mode configured for this process
+     */
+    public static String configuredMode() {
+        return System.getProperty("elitecure.http.executor", MODE_POOL);
+    }
+
+    /**
+     * Create the executor for the given mode; returns null for dispatcher mode
+     */
+    public static ExecutorService create(String mode) {
+        switch (mode) {
+            case MODE_DISPATCHER:
+                return null;
+            case MODE_VIRTUAL:
+                ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+                if (virtual != null) {
+                    return virtual;
+                }
+                System.err.println("Virtual threads need Java 21+, using a bounded pool instead");
+                return newBoundedPool(POOL_THREADS, QUEUE_LIMIT);
+            case MODE_POOL:
+                return newBoundedPool(POOL_THREADS, QUEUE_LIMIT);
+            default:
+                throw new IllegalArgumentException("Unknown HTTP executor mode: " + mode);
+        }
+    }
+
+    /**
+     * Fixed-size pool of platform threads with a bounded queue
+     * When the queue is full the task runs on the submitting dispatcher thread,
+     * which stops it from accepting more connections until the backlog drains
+     */
+    public static ExecutorService newBoundedPool(int threads, int queueLimit) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueLimit),
+            namedThreads("http-worker-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up reflectively so the
+     * project still compiles for Java 17
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stop accepting tasks and wait for running ones to finish
+     */
+    public static void drain(ExecutorService executor, long timeoutSeconds) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("HTTP executor did not drain in " + timeoutSeconds + "s, interrupting");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
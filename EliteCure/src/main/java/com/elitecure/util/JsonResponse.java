@@ -1,7 +1,18 @@
 package com.elitecure.util;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 /**
  * Utility class for creating JSON responses
@@ -9,16 +20,86 @@ import com.google.gson.Gson;
 public class JsonResponse {
     
     private static final Gson gson = GsonUtil.getGson();
+    // Buffers that grew past this are replaced rather than kept for the thread's next response
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+    private static final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
     
     /**
      * Create a success response with data
      */
     public static String success(Object data) {
-        JsonObject response = new JsonObject();
-        response.addProperty("success", true);
-        response.add("data", com.google.gson.JsonParser.parseString(
-            gson.toJson(data)));
-        return response.toString();
+        StringWriter out = new StringWriter();
+        try {
+            writeSuccess(data, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Write {"success":true,"data":...} in a single pass
+     * The payload goes through the registered TypeAdapters straight into out,
+     * with no intermediate String or JsonElement tree.
+     */
+    public static void writeSuccess(Object data, Writer out) throws IOException {
+        writeEnvelope(data, false, null, out);
+    }
+
+    /**
+     * Write {"success":true,"data":[...],"nextCursor":...} for one page of a list
+     */
+    public static void writePage(Object data, String nextCursor, Writer out) throws IOException {
+        writeEnvelope(data, true, nextCursor, out);
+    }
+
+    private static void writeEnvelope(Object data, boolean paged, String nextCursor, Writer out) throws IOException {
+        long start = System.nanoTime();
+        JsonWriter writer = gson.newJsonWriter(out);
+        writer.setSerializeNulls(true);
+        writer.beginObject();
+        writer.name("success").value(true);
+        writer.name("data");
+        if (data == null) {
+            writer.nullValue();
+        } else {
+            gson.toJson(data, data.getClass(), writer);
+        }
+        if (paged) {
+            writer.name("nextCursor").value(nextCursor);
+        }
+        writer.endObject();
+        writer.flush();
+        Metrics.recordJsonSerialization(System.nanoTime() - start);
+    }
+    
+    /**
+     * Serialize a success envelope as UTF-8 into this thread's reusable buffer
+     * The returned buffer is overwritten by the next call on the same thread.
+     */
+    public static Buffer successBuffer(Object data) throws IOException {
+        Buffer buffer = threadBuffer();
+        writeSuccess(data, buffer.writer);
+        return buffer;
+    }
+    
+    /**
+     * Serialize a page envelope into this thread's reusable buffer, like successBuffer()
+     */
+    public static Buffer pageBuffer(Object data, String nextCursor) throws IOException {
+        Buffer buffer = threadBuffer();
+        writePage(data, nextCursor, buffer.writer);
+        return buffer;
+    }
+    
+    private static Buffer threadBuffer() {
+        Buffer buffer = buffers.get();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            buffer = new Buffer();
+            buffers.set(buffer);
+        }
+        buffer.reset();
+        return buffer;
     }
     
     /**
@@ -41,6 +122,24 @@ public class JsonResponse {
         return response.toString();
     }
     
+    /**
+     * Create an error response listing a message per failing item index
+     */
+    public static String error(String message, Map<Integer, String> itemErrors) {
+        JsonObject response = new JsonObject();
+        response.addProperty("success", false);
+        response.addProperty("error", message);
+        JsonArray errors = new JsonArray();
+        for (Map.Entry<Integer, String> entry : itemErrors.entrySet()) {
+            JsonObject item = new JsonObject();
+            item.addProperty("index", entry.getKey());
+            item.addProperty("error", entry.getValue());
+            errors.add(item);
+        }
+        response.add("errors", errors);
+        return response.toString();
+    }
+    
     /**
      * Create an error response with status code
      */
@@ -51,4 +150,26 @@ public class JsonResponse {
         response.addProperty("statusCode", statusCode);
         return response.toString();
     }
+    
+    /**
+     * Growable byte buffer with a UTF-8 writer over it; exposes its array to avoid a copy
+     */
+    public static final class Buffer extends ByteArrayOutputStream {
+        private final Writer writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+    
+        private Buffer() {
+            super(8192);
+        }
+    
+        /**
+         * Backing array; only the first size() bytes are valid
+         */
+        public byte[] array() {
+            return buf;
+        }
+    
+        private int capacity() {
+            return buf.length;
+        }
+    }
 }
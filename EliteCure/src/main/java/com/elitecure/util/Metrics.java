@@ -0,0 +1,324 @@
+package com.elitecure.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process metrics: per-route request counts and latency histograms, DAO
+ * statement timings and JSON serialization time, written out in the
+ * Prometheus text format by MetricsController.
+ *
+ * Recording never takes a lock: every counter is a LongAdder, which stripes
+ * contended increments across cells, and the series for a route or query is
+ * created once and then only read from its map.
+ */
+public class Metrics {
+    /** Upper bounds (in seconds) of the latency histogram buckets */
+    public static final double[] LATENCY_BUCKETS_SECONDS =
+        {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    // Route label for requests that matched no route, so unknown paths cannot add series
+    public static final String UNMATCHED = "unmatched";
+
+    // Distinct statements beyond this are counted under one "other" series
+    private static final int MAX_QUERY_SERIES = 200;
+    private static final String OTHER_QUERY = "other";
+    private static final Pattern VERB = Pattern.compile("^\\s*([A-Za-z]+)\\s+([A-Za-z_][A-Za-z0-9_.]*)?");
+    private static final Pattern TABLE = Pattern.compile(
+        "\\b(?:FROM|INTO)\\s+([A-Za-z_][A-Za-z0-9_.]*)", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> queries = new ConcurrentHashMap<>();
+    private static final Map<String, String> queryLabels = new ConcurrentHashMap<>();
+    private static final Histogram jsonSerialization = new Histogram();
+
+    private Metrics() {
+    }
+
+    /**
+     * Handler that records route metrics around handler
+     */
+    public static HttpHandler timed(String route, HttpHandler handler) {
+        Route metrics = route(route);
+        return exchange -> metrics.observe(exchange, () -> handler.handle(exchange));
+    }
+
+    /**
+     * Run action for exchange and record it under route
+     */
+    public static void observe(String route, HttpExchange exchange, Action action) throws IOException {
+        route(route).observe(exchange, action);
+    }
+
+    /**
+     * Series for route, created on first use
+     */
+    public static Route route(String route) {
+        Route metrics = routes.get(route);
+        return metrics != null ? metrics : routes.computeIfAbsent(route, Route::new);
+    }
+
+    /**
+     * Record one DAO statement execution, as timed by QueryExecutor
+     */
+    public static void recordQuery(String sql, long nanos) {
+        String label = queryLabel(sql);
+        Histogram histogram = queries.get(label);
+        if (histogram == null) {
+            histogram = queries.computeIfAbsent(label, l -> new Histogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Record the time spent writing one JSON envelope
+     */
+    public static void recordJsonSerialization(long nanos) {
+        jsonSerialization.record(nanos);
+    }
+
+    /**
+     * Low-cardinality label for a statement: the verb and the first table, e.g. "SELECT reminders"
+     */
+    static String queryLabel(String sql) {
+        if (sql == null) {
+            return "batch";
+        }
+        String label = queryLabels.get(sql);
+        if (label != null) {
+            return label;
+        }
+        Matcher verb = VERB.matcher(sql);
+        if (!verb.find()) {
+            label = OTHER_QUERY;
+        } else {
+            label = verb.group(1).toUpperCase(Locale.ROOT);
+            Matcher table = TABLE.matcher(sql);
+            String target = "UPDATE".equals(label) ? verb.group(2) : table.find() ? table.group(1) : null;
+            if (target != null) {
+                label += " " + target.toLowerCase(Locale.ROOT);
+            }
+        }
+        // Statements built at runtime (ReminderQuery) vary in text but not in label,
+        // so stop caching texts well before the map could grow without bound
+        if (queryLabels.size() < MAX_QUERY_SERIES * 10) {
+            queryLabels.put(sql, label);
+        }
+        if (!queries.containsKey(label) && queries.size() >= MAX_QUERY_SERIES) {
+            return OTHER_QUERY;
+        }
+        return label;
+    }
+
+    /**
+     * Write every series in the Prometheus text exposition format
+     */
+    public static void writePrometheus(Writer out) throws IOException {
+        Map<String, Route> sortedRoutes = new TreeMap<>(routes);
+
+        header(out, "elitecure_http_requests_total", "counter", "HTTP requests by route and response status");
+        for (Route route : sortedRoutes.values()) {
+            for (int i = 0; i < route.statuses.length(); i++) {
+                LongAdder count = route.statuses.get(i);
+                if (count != null) {
+                    out.write("elitecure_http_requests_total{route=\"" + escape(route.name) + "\",status=\""
+                        + (i + Route.MIN_STATUS) + "\"} " + count.sum() + "\n");
+                }
+            }
+        }
+
+        header(out, "elitecure_http_request_duration_seconds", "histogram",
+            "Time from handler start to handler return, by route (for event streams, until the stream opens)");
+        for (Route route : sortedRoutes.values()) {
+            route.latency.write(out, "elitecure_http_request_duration_seconds", "route=\"" + escape(route.name) + "\"");
+        }
+
+        header(out, "elitecure_http_response_bytes_total", "counter", "Response body bytes written, by route");
+        for (Route route : sortedRoutes.values()) {
+            out.write("elitecure_http_response_bytes_total{route=\"" + escape(route.name) + "\"} "
+                + route.responseBytes.sum() + "\n");
+        }
+
+        header(out, "elitecure_db_query_duration_seconds", "histogram",
+            "DAO statement execution time, by statement verb and table");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(queries).entrySet()) {
+            entry.getValue().write(out, "elitecure_db_query_duration_seconds",
+                "query=\"" + escape(entry.getKey()) + "\"");
+        }
+
+        header(out, "elitecure_json_serialization_duration_seconds", "histogram",
+            "Time to serialize one JSON response envelope");
+        jsonSerialization.write(out, "elitecure_json_serialization_duration_seconds", null);
+    }
+
+    /**
+     * Write the HELP and TYPE lines that start a metric family
+     */
+    public static void header(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    /**
+     * Write one sample of an unlabelled gauge or counter family, with its header
+     */
+    public static void sample(Writer out, String name, String type, String help, double value) throws IOException {
+        header(out, name, type, help);
+        out.write(name + " " + format(value) + "\n");
+    }
+
+    public static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    public static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Work done for one exchange
+     */
+    public interface Action {
+        void run() throws IOException;
+    }
+
+    /**
+     * Counts, latency and bytes for one route
+     */
+    public static final class Route {
+        private static final int MIN_STATUS = 100;
+        private static final int MAX_STATUS = 599;
+
+        private final String name;
+        // Indexed by status - 100; a slot is filled the first time that status is seen
+        private final AtomicReferenceArray<LongAdder> statuses =
+            new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1);
+        private final Histogram latency = new Histogram();
+        private final LongAdder responseBytes = new LongAdder();
+
+        private Route(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Run action with the response body counted, then record status and latency
+         * An exchange that throws before sending headers is counted as a 500.
+         */
+        public void observe(HttpExchange exchange, Action action) throws IOException {
+            long start = System.nanoTime();
+            exchange.setStreams(null, new CountingOutputStream(exchange.getResponseBody(), responseBytes));
+            try {
+                action.run();
+            } finally {
+                latency.record(System.nanoTime() - start);
+                int status = exchange.getResponseCode();
+                countStatus(status < MIN_STATUS || status > MAX_STATUS ? 500 : status);
+            }
+        }
+
+        private void countStatus(int status) {
+            int slot = status - MIN_STATUS;
+            LongAdder count = statuses.get(slot);
+            if (count == null) {
+                statuses.compareAndSet(slot, null, new LongAdder());
+                count = statuses.get(slot);
+            }
+            count.increment();
+        }
+    }
+
+    /**
+     * Fixed-bucket latency histogram
+     * Buckets are counted separately and made cumulative only when written.
+     */
+    public static final class Histogram {
+        private static final long[] BOUNDS_NANOS = new long[LATENCY_BUCKETS_SECONDS.length];
+        // le label values, "0.0005" rather than "5.0E-4"
+        private static final String[] BOUND_LABELS = new String[LATENCY_BUCKETS_SECONDS.length + 1];
+
+        static {
+            for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+                BOUNDS_NANOS[i] = (long) (LATENCY_BUCKETS_SECONDS[i] * 1e9);
+                BOUND_LABELS[i] = BigDecimal.valueOf(LATENCY_BUCKETS_SECONDS[i]).stripTrailingZeros().toPlainString();
+            }
+            BOUND_LABELS[BOUNDS_NANOS.length] = "+Inf";
+        }
+
+        // The last bucket counts values above the largest bound
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+
+        public Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            int i = 0;
+            while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sumNanos.add(nanos);
+        }
+
+        /**
+         * Write the _bucket, _sum and _count samples; labels is null or "name=\"value\",..."
+         */
+        void write(Writer out, String name, String labels) throws IOException {
+            String prefix = labels == null ? "{" : "{" + labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                out.write(name + "_bucket" + prefix + "le=\"" + BOUND_LABELS[i] + "\"} " + cumulative + "\n");
+            }
+            String plain = labels == null ? "" : "{" + labels + "}";
+            out.write(name + "_sum" + plain + " " + format(sumNanos.sum() / 1e9) + "\n");
+            out.write(name + "_count" + plain + " " + cumulative + "\n");
+        }
+    }
+
+    /**
+     * Response body wrapper that adds the bytes written through it to a counter
+     * Event streams keep writing from other threads after their handler returns,
+     * so bytes are counted as they are written rather than when the handler ends.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final LongAdder count;
+
+        private CountingOutputStream(OutputStream out, LongAdder count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.add(len);
+        }
+    }
+}
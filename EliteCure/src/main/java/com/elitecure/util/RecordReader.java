@@ -0,0 +1,139 @@
+package com.elitecure.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an upload one record at a time: lines for NDJSON, RFC 4180 records for CSV
+ * Works from a fixed char buffer and one reused StringBuilder, so memory does
+ * not grow with the size of the input. A record longer than maxRecordChars
+ * fails with IllegalArgumentException instead of being buffered.
+ */
+public class RecordReader {
+    private final Reader in;
+    private final int maxRecordChars;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private int recordChars;
+
+    public RecordReader(Reader in, int maxRecordChars) {
+        this.in = in;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /**
+     * Line on which the last returned record started (1-based)
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Next line without its terminator (\n or \r\n), or null at end of input
+     */
+    public String readLine() throws IOException {
+        field.setLength(0);
+        recordLine = line;
+        recordChars = 0;
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        while (c >= 0 && c != '\n') {
+            append(c);
+            c = read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        int length = field.length();
+        if (length > 0 && field.charAt(length - 1) == '\r') {
+            field.setLength(length - 1);
+        }
+        return field.toString();
+    }
+
+    /**
+     * Next CSV record as its fields, or null at end of input
+     * Quoted fields may contain commas, doubled quotes and line breaks.
+     */
+    public List<String> readCsvRecord() throws IOException {
+        recordLine = line;
+        recordChars = 0;
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    c = read();
+                    if (c >= 0 && c != '\n') {
+                        // Lone CR: treat as a line break and keep the char for the next record
+                        position--;
+                    }
+                }
+                if (c >= 0) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                append(c);
+            }
+            c = read();
+        }
+    }
+
+    private void append(int c) {
+        if (++recordChars > maxRecordChars) {
+            throw new IllegalArgumentException("Record on line " + recordLine
+                + " is longer than " + maxRecordChars + " characters");
+        }
+        field.append((char) c);
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+}
@@ -0,0 +1,237 @@
+package com.elitecure.util;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip / deflate response compression
+ * Picks an encoding from Accept-Encoding and compresses with pooled Deflater
+ * instances and scratch buffers instead of allocating a GZIPOutputStream per
+ * response. Bodies below the size threshold are sent as-is.
+ */
+public class ResponseCompression {
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final int MIN_SIZE = Integer.getInteger("elitecure.compression.minSize", 1024);
+    private static final int LEVEL = Integer.getInteger("elitecure.compression.level", Deflater.DEFAULT_COMPRESSION);
+    private static final int MAX_POOLED = Runtime.getRuntime().availableProcessors() * 4;
+    // Scratch buffers that grew past this are dropped after use rather than kept in the pool
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    // gzip member header: magic, CM=deflate, no flags, no mtime, no extra flags, OS=unknown
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final Queue<Compressor> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooledCount = new AtomicInteger();
+
+    private ResponseCompression() {}
+
+    /**
+     * Encoding to use for a body of the given size, or null to send it uncompressed
+     */
+    public static String negotiate(HttpExchange exchange, int length) {
+        if (length < MIN_SIZE) {
+            return null;
+        }
+        return negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    /**
+     * Preferred supported encoding from an Accept-Encoding value; gzip wins ties
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        double gzipQ = -1;
+        double deflateQ = -1;
+        double anyQ = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String token = part.trim();
+            double q = 1.0;
+            int semi = token.indexOf(';');
+            if (semi >= 0) {
+                String param = token.substring(semi + 1).trim();
+                token = token.substring(0, semi).trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (token.equalsIgnoreCase(GZIP) || token.equalsIgnoreCase("x-gzip")) {
+                gzipQ = q;
+            } else if (token.equalsIgnoreCase(DEFLATE)) {
+                deflateQ = q;
+            } else if (token.equals("*")) {
+                anyQ = q;
+            }
+        }
+        if (gzipQ < 0) {
+            gzipQ = anyQ;
+        }
+        if (deflateQ < 0) {
+            deflateQ = anyQ;
+        }
+        if (gzipQ > 0 && gzipQ >= deflateQ) {
+            return GZIP;
+        }
+        return deflateQ > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Smallest body that gets compressed
+     */
+    public static int getMinSize() {
+        return MIN_SIZE;
+    }
+
+    /**
+     * Whether a content type is worth compressing (text formats, not images or audio)
+     */
+    public static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/")
+            || contentType.startsWith("application/json")
+            || contentType.startsWith("application/javascript")
+            || contentType.startsWith("image/svg+xml");
+    }
+
+    /**
+     * Compress a body with the given encoding ("gzip" or "deflate")
+     */
+    public static byte[] compress(byte[] data, String encoding) {
+        return compress(data, 0, data.length, encoding);
+    }
+
+    /**
+     * Compress length bytes of data starting at offset
+     */
+    public static byte[] compress(byte[] data, int offset, int length, String encoding) {
+        Compressor compressor = pool.poll();
+        if (compressor == null) {
+            compressor = new Compressor();
+        } else {
+            pooledCount.decrementAndGet();
+        }
+        try {
+            return GZIP.equals(encoding)
+                ? compressor.gzip(data, offset, length)
+                : compressor.deflate(data, offset, length);
+        } finally {
+            compressor.trim();
+            if (pooledCount.incrementAndGet() <= MAX_POOLED) {
+                pool.offer(compressor);
+            } else {
+                pooledCount.decrementAndGet();
+                compressor.end();
+            }
+        }
+    }
+
+    /**
+     * Wrap a streamed response body so it is compressed as it is written
+     * For bodies of unknown length (chunked responses), where the pooled
+     * whole-buffer path cannot be used. Closing the returned stream finishes
+     * the encoding and closes out.
+     */
+    public static OutputStream wrap(OutputStream out, String encoding) throws IOException {
+        if (GZIP.equals(encoding)) {
+            return new GZIPOutputStream(out, 8192);
+        }
+        if (DEFLATE.equals(encoding)) {
+            return new DeflaterOutputStream(out, new Deflater(LEVEL, false), 8192) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+        return out;
+    }
+
+    /**
+     * Reusable Deflater pair, checksum and scratch buffer; used by one thread at a time
+     */
+    private static final class Compressor {
+        // Raw deflate for gzip (we write the gzip header/trailer), zlib-wrapped for "deflate"
+        private final Deflater raw = new Deflater(LEVEL, true);
+        private final Deflater zlib = new Deflater(LEVEL, false);
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[8192];
+
+        private byte[] gzip(byte[] data, int offset, int length) {
+            System.arraycopy(GZIP_HEADER, 0, buffer, 0, GZIP_HEADER.length);
+            int end = run(raw, data, offset, length, GZIP_HEADER.length);
+
+            crc.reset();
+            crc.update(data, offset, length);
+            ensureCapacity(end + 8);
+            writeIntLE((int) crc.getValue(), end);
+            writeIntLE(length, end + 4);
+            return Arrays.copyOf(buffer, end + 8);
+        }
+
+        private byte[] deflate(byte[] data, int offset, int length) {
+            int end = run(zlib, data, offset, length, 0);
+            return Arrays.copyOf(buffer, end);
+        }
+
+        /**
+         * Deflate the input range into the scratch buffer starting at start; returns the end position
+         */
+        private int run(Deflater deflater, byte[] data, int offset, int length, int start) {
+            deflater.reset();
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            int position = start;
+            while (!deflater.finished()) {
+                if (position == buffer.length) {
+                    ensureCapacity(buffer.length * 2);
+                }
+                position += deflater.deflate(buffer, position, buffer.length - position);
+            }
+            return position;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (buffer.length < capacity) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+            }
+        }
+
+        private void trim() {
+            if (buffer.length > MAX_RETAINED_BUFFER) {
+                buffer = new byte[8192];
+            }
+        }
+
+        private void writeIntLE(int value, int position) {
+            buffer[position] = (byte) value;
+            buffer[position + 1] = (byte) (value >>> 8);
+            buffer[position + 2] = (byte) (value >>> 16);
+            buffer[position + 3] = (byte) (value >>> 24);
+        }
+
+        private void end() {
+            raw.end();
+            zlib.end();
+        }
+    }
+}
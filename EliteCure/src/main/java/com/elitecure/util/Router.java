@@ -0,0 +1,300 @@
+package com.elitecure.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Method and path template router for the API
+ * Templates are split into segments once, at registration, into a trie:
+ * "/api/reminders/{id:long}/taken" is the literal segments "api" and
+ * "reminders", a long parameter "id", then the literal "taken". A request path
+ * is matched by walking the trie over the path string in place (no split,
+ * regex or substring), trying literal segments before parameters. A path with
+ * no route gets 404; a path whose route lacks the method gets 405 with an
+ * Allow header. OPTIONS on any routed path goes to the options handler.
+ *
+ * Parameter types: {name} matches any non-empty segment, {name:long} only digits.
+ *
+ * Every route is timed in Metrics under "METHOD template"; 404s and 405s go
+ * under Metrics.UNMATCHED and preflights under "OPTIONS", so the label set
+ * stays fixed whatever paths clients send.
+ */
+public class Router implements HttpHandler {
+    private static final Params NO_PARAMS = new Params(null, List.of(), new int[0]);
+
+    /**
+     * Route handler that receives the path parameters
+     */
+    public interface Handler {
+        void handle(HttpExchange exchange, Params params) throws IOException;
+    }
+
+    private final Node root = new Node(null);
+    private HttpHandler optionsHandler;
+    // Most parameters in any one route, to size the bounds array
+    private int maxParams;
+
+    /**
+     * Register a handler that needs path parameters
+     */
+    public Router add(String method, String template, Handler handler) {
+        Node node = root;
+        List<String> names = new ArrayList<>();
+        for (String segment : segments(template)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String spec = segment.substring(1, segment.length() - 1);
+                int colon = spec.indexOf(':');
+                String name = colon < 0 ? spec : spec.substring(0, colon);
+                ParamType type = colon < 0 ? ParamType.STRING : ParamType.of(spec.substring(colon + 1), template);
+                names.add(name);
+                node = node.paramChild(type);
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+        if (node.handlers.containsKey(method)) {
+            throw new IllegalArgumentException("Duplicate route " + method + " " + template);
+        }
+        if (node.paramNames != null && !node.paramNames.equals(names)) {
+            throw new IllegalArgumentException("Route " + template + " names its parameters differently from "
+                + "another route on the same path: " + node.paramNames);
+        }
+        node.paramNames = names;
+        Metrics.Route metrics = Metrics.route(method + " " + template);
+        node.handlers.put(method,
+            (exchange, params) -> metrics.observe(exchange, () -> handler.handle(exchange, params)));
+        maxParams = Math.max(maxParams, names.size());
+        return this;
+    }
+
+    /**
+     * Register a plain handler
+     */
+    public Router add(String method, String template, HttpHandler handler) {
+        return add(method, template, (exchange, params) -> handler.handle(exchange));
+    }
+
+    public Router get(String template, HttpHandler handler) {
+        return add("GET", template, handler);
+    }
+
+    public Router post(String template, HttpHandler handler) {
+        return add("POST", template, handler);
+    }
+
+    /**
+     * Handler for OPTIONS requests (CORS preflight) on any routed path
+     */
+    public Router options(HttpHandler handler) {
+        this.optionsHandler = handler;
+        return this;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int[] bounds = new int[maxParams * 2];
+        Node node = path.startsWith("/") ? match(root, path, 1, bounds, 0) : null;
+        if (node == null) {
+            Metrics.observe(Metrics.UNMATCHED, exchange, () -> sendError(exchange, 404, "Not found"));
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        Handler handler = node.handlers.get(method);
+        if (handler != null) {
+            Params params = node.paramNames.isEmpty() ? NO_PARAMS : new Params(path, node.paramNames, bounds);
+            handler.handle(exchange, params);
+        } else if ("OPTIONS".equals(method) && optionsHandler != null) {
+            Metrics.observe("OPTIONS", exchange, () -> optionsHandler.handle(exchange));
+        } else {
+            String allow = String.join(", ", node.handlers.keySet());
+            exchange.getResponseHeaders().set("Allow", optionsHandler != null ? allow + ", OPTIONS" : allow);
+            Metrics.observe(Metrics.UNMATCHED, exchange, () -> sendError(exchange, 405, "Method not allowed"));
+        }
+    }
+
+    /**
+     * The handler for a method and path, or null; matching without an exchange, for benchmarks
+     */
+    Handler find(String method, String path) {
+        Node node = path.startsWith("/") ? match(root, path, 1, new int[maxParams * 2], 0) : null;
+        return node == null ? null : node.handlers.get(method);
+    }
+
+    /**
+     * Match the path from start (just after a '/') against node's children;
+     * parameter bounds are written to bounds from index depth * 2
+     */
+    private static Node match(Node node, String path, int start, int[] bounds, int depth) {
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        if (end == start) {
+            // Empty segment ("//" or a trailing slash) never matches
+            return null;
+        }
+        boolean last = end == path.length();
+        int length = end - start;
+
+        for (Node child : node.literals) {
+            if (child.segment.length() == length && path.regionMatches(start, child.segment, 0, length)) {
+                Node found = last ? child.routable() : match(child, path, end + 1, bounds, depth);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        for (Node child : node.params) {
+            if (child.type.matches(path, start, end)) {
+                bounds[depth * 2] = start;
+                bounds[depth * 2 + 1] = end;
+                Node found = last ? child.routable() : match(child, path, end + 1, bounds, depth + 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<String> segments(String template) {
+        if (!template.startsWith("/") || template.endsWith("/") || template.contains("//")) {
+            throw new IllegalArgumentException("Bad route template: " + template);
+        }
+        return List.of(template.substring(1).split("/"));
+    }
+
+    private static void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        byte[] body = JsonResponse.error(message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private enum ParamType {
+        STRING,
+        LONG;
+
+        static ParamType of(String name, String template) {
+            if ("long".equals(name)) {
+                return LONG;
+            }
+            throw new IllegalArgumentException("Unknown parameter type '" + name + "' in " + template);
+        }
+
+        boolean matches(String path, int start, int end) {
+            if (this == STRING) {
+                return true;
+            }
+            // Up to 18 digits always fits in a long
+            if (end - start > 18) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                char c = path.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Node {
+        private final String segment;
+        private final List<Node> literals = new ArrayList<>();
+        private final List<Node> params = new ArrayList<>();
+        private ParamType type;
+        // Sorted so the Allow header is stable
+        private final Map<String, Handler> handlers = new TreeMap<>();
+        private List<String> paramNames;
+
+        private Node(String segment) {
+            this.segment = segment;
+        }
+
+        private Node literalChild(String segment) {
+            for (Node child : literals) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            Node child = new Node(segment);
+            literals.add(child);
+            return child;
+        }
+
+        private Node paramChild(ParamType type) {
+            for (Node child : params) {
+                if (child.type == type) {
+                    return child;
+                }
+            }
+            Node child = new Node(null);
+            child.type = type;
+            params.add(child);
+            // Narrower types first, so {id:long} is tried before {name}
+            params.sort((a, b) -> b.type.compareTo(a.type));
+            return child;
+        }
+
+        private Node routable() {
+            return handlers.isEmpty() ? null : this;
+        }
+    }
+
+    /**
+     * Path parameters of a matched request, read straight from the path string
+     */
+    public static class Params {
+        private final String path;
+        private final List<String> names;
+        private final int[] bounds;
+
+        private Params(String path, List<String> names, int[] bounds) {
+            this.path = path;
+            this.names = names;
+            this.bounds = bounds;
+        }
+
+        public String get(String name) {
+            int i = indexOf(name);
+            return path.substring(bounds[i * 2], bounds[i * 2 + 1]);
+        }
+
+        /**
+         * A {name:long} parameter, parsed without creating a string
+         */
+        public long getLong(String name) {
+            int i = indexOf(name);
+            long value = 0;
+            for (int p = bounds[i * 2]; p < bounds[i * 2 + 1]; p++) {
+                int digit = path.charAt(p) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IllegalArgumentException("Path parameter '" + name + "' is not a number");
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private int indexOf(String name) {
+            int i = names.indexOf(name);
+            if (i < 0) {
+                throw new IllegalArgumentException("No path parameter '" + name + "'");
+            }
+            return i;
+        }
+    }
+}
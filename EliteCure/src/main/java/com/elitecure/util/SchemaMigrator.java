@@ -0,0 +1,287 @@
+package com.elitecure.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations
+ * Scripts live on the classpath as db/migration/V<n>__<description>.sql and
+ * run in version order. Each applied script is recorded in schema_history
+ * with a checksum and its run time, so startup only runs new versions. A
+ * script whose checksum no longer matches its history row stops startup:
+ * applied migrations must not be edited, add a new version instead.
+ */
+public class SchemaMigrator {
+    private static final String LOCATION = "db/migration";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private SchemaMigrator() {}
+
+    /**
+     * Bring the schema up to the latest version
+     */
+    public static Result migrate(Connection conn) throws SQLException, IOException {
+        long start = System.nanoTime();
+        createHistoryTable(conn);
+        Map<Integer, String> applied = loadAppliedChecksums(conn);
+        TreeMap<Integer, String> scripts = findScripts();
+
+        for (Integer version : applied.keySet()) {
+            if (!scripts.containsKey(version)) {
+                System.err.println("Warning: schema version " + version + " is applied but has no script");
+            }
+        }
+
+        int appliedNow = 0;
+        int current = applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        for (Map.Entry<Integer, String> entry : scripts.entrySet()) {
+            int version = entry.getKey();
+            String sql = readScript(entry.getValue());
+            String checksum = checksum(sql);
+            String recorded = applied.get(version);
+            if (recorded != null) {
+                if (!recorded.equals(checksum)) {
+                    throw new IllegalStateException("Migration " + entry.getValue()
+                        + " was changed after it was applied (checksum " + checksum + ", recorded " + recorded + ")");
+                }
+                continue;
+            }
+            apply(conn, version, entry.getValue(), sql, checksum);
+            appliedNow++;
+            current = Math.max(current, version);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new Result(current, appliedNow, elapsedMillis);
+    }
+
+    private static void createHistoryTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_history (" +
+                "version INT PRIMARY KEY, " +
+                "script VARCHAR(255) NOT NULL, " +
+                "checksum VARCHAR(16) NOT NULL, " +
+                "installed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "execution_ms BIGINT NOT NULL)");
+        }
+    }
+
+    private static Map<Integer, String> loadAppliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Run one script and record it; data changes are rolled back if it fails
+     * (H2 commits DDL statements immediately, so those cannot be undone)
+     */
+    private static void apply(Connection conn, int version, String script, String sql, String checksum)
+            throws SQLException {
+        long start = System.nanoTime();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : splitStatements(sql)) {
+                stmt.execute(statement);
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO schema_history (version, script, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, version);
+                insert.setString(2, script);
+                insert.setString(3, checksum);
+                insert.setLong(4, elapsedMillis);
+                insert.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("Applied migration " + script + " in " + elapsedMillis + " ms");
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Migration " + script + " failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Migration scripts by version, from a directory (IDE, mvn exec) or the application jar
+     */
+    private static TreeMap<Integer, String> findScripts() throws IOException {
+        List<String> names = new ArrayList<>();
+        URL url = SchemaMigrator.class.getClassLoader().getResource(LOCATION);
+        if (url == null) {
+            throw new IOException("No migrations found at classpath:" + LOCATION);
+        }
+        if ("jar".equals(url.getProtocol())) {
+            JarURLConnection connection = (JarURLConnection) url.openConnection();
+            connection.setUseCaches(false);
+            try (JarFile jar = connection.getJarFile()) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.startsWith(LOCATION + "/")) {
+                        names.add(name.substring(LOCATION.length() + 1));
+                    }
+                }
+            }
+        } else {
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get(url.toURI()))) {
+                for (Path path : dir) {
+                    names.add(path.getFileName().toString());
+                }
+            } catch (URISyntaxException e) {
+                throw new IOException("Bad migration location " + url, e);
+            }
+        }
+
+        TreeMap<Integer, String> scripts = new TreeMap<>();
+        for (String name : names) {
+            Matcher matcher = SCRIPT_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String previous = scripts.put(Integer.parseInt(matcher.group(1)), name);
+            if (previous != null) {
+                throw new IllegalStateException("Two migrations for version " + matcher.group(1)
+                    + ": " + previous + " and " + name);
+            }
+        }
+        return scripts;
+    }
+
+    private static String readScript(String name) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(LOCATION + "/" + name)) {
+            if (in == null) {
+                throw new IOException("Cannot read migration " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * CRC32 of the script with line endings normalized, so CRLF and LF checkouts agree
+     */
+    static String checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Split a script on semicolons outside quotes and -- comments
+     */
+    static List<String> splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inString = false;
+        boolean inComment = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (inComment) {
+                if (c == '\n') {
+                    inComment = false;
+                    current.append(c);
+                }
+            } else if (inString) {
+                current.append(c);
+                if (c == '\'') {
+                    inString = false;
+                }
+            } else if (c == '\'') {
+                inString = true;
+                current.append(c);
+            } else if (c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-') {
+                inComment = true;
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * Outcome of a migrate() call
+     */
+    public static class Result {
+        private final int version;
+        private final int applied;
+        private final long elapsedMillis;
+
+        Result(int version, int applied, long elapsedMillis) {
+            this.version = version;
+            this.applied = applied;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Schema version after migrating
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * Migrations run by this call
+         */
+        public int getApplied() {
+            return applied;
+        }
+
+        /**
+         * Time spent on schema work, including the history checks
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "version=" + version +
+                    ", applied=" + applied +
+                    ", elapsedMillis=" + elapsedMillis +
+                    '}';
+        }
+    }
+}
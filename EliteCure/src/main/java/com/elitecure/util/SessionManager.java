@@ -2,49 +2,380 @@ package com.elitecure.util;
 
 import com.elitecure.model.User;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Simple session manager for user sessions
- * Stores session information in memory
+ * Session manager for user sessions
+ * Sessions are compact records (user id, name, email and expiry, never the
+ * password hash) spread over a fixed number of shards. Every lookup slides the
+ * expiry forward; a sweeper removes expired sessions one shard per tick so it
+ * never walks the whole store at once. With elitecure.session.snapshotFile set
+ * the store is written to disk periodically and on shutdown, and read back at
+ * startup so a restart does not log everyone out.
  */
 public class SessionManager {
-    private static final Map<String, User> sessions = new ConcurrentHashMap<>();
-    
+    private static final long TTL_MILLIS =
+        TimeUnit.MINUTES.toMillis(Long.getLong("elitecure.session.ttlMinutes", 720));
+    private static final int SHARD_COUNT = Integer.getInteger("elitecure.session.shards", 16);
+    // Time for the sweeper to visit every shard once
+    private static final long SWEEP_CYCLE_MILLIS =
+        TimeUnit.SECONDS.toMillis(Long.getLong("elitecure.session.sweepSeconds", 60));
+    private static final String SNAPSHOT_FILE = System.getProperty("elitecure.session.snapshotFile", "");
+    private static final long SNAPSHOT_SECONDS = Long.getLong("elitecure.session.snapshotSeconds", 60);
+
+    private static final int SNAPSHOT_MAGIC = 0x45435331; // "ECS1"
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Map<String, Session>[] shards = new Map[SHARD_COUNT];
+    static {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder expired = new LongAdder();
+    private static final LongAdder invalidated = new LongAdder();
+    private static final LongAdder restored = new LongAdder();
+    // Kept up to date on every add and remove, so reading stats never walks the shards
+    private static final LongAdder active = new LongAdder();
+    private static final LongAdder activeBytes = new LongAdder();
+
+    private static ScheduledExecutorService background;
+    private static int nextShard;
+
+    private SessionManager() {}
+
     /**
      * Create a new session for a user
      */
     public static String createSession(User user) {
         String sessionId = UUID.randomUUID().toString();
-        sessions.put(sessionId, user);
+        Session session = new Session(user.getId(), user.getFullName(), user.getEmail(),
+            System.currentTimeMillis() + TTL_MILLIS);
+        put(sessionId, session);
+        created.increment();
         return sessionId;
     }
-    
+
     /**
-     * Get user from session
+     * Get user from session, extending the session's lifetime
+     * The returned User has no password hash.
      */
     public static User getUser(String sessionId) {
         if (sessionId == null || sessionId.isEmpty()) {
             return null;
         }
-        return sessions.get(sessionId);
+        Map<String, Session> shard = shard(sessionId);
+        Session session = shard.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (session.expiresAt <= now) {
+            if (shard.remove(sessionId, session)) {
+                removed(sessionId, session);
+                expired.increment();
+            }
+            return null;
+        }
+        session.expiresAt = now + TTL_MILLIS;
+        return session.toUser();
     }
-    
+
     /**
      * Invalidate (destroy) a session
      */
     public static void invalidateSession(String sessionId) {
         if (sessionId != null && !sessionId.isEmpty()) {
-            sessions.remove(sessionId);
+            Session session = shard(sessionId).remove(sessionId);
+            if (session != null) {
+                removed(sessionId, session);
+                invalidated.increment();
+            }
         }
     }
-    
+
     /**
      * Check if session is valid
      */
     public static boolean isValidSession(String sessionId) {
-        return sessionId != null && sessions.containsKey(sessionId);
+        if (sessionId == null) {
+            return false;
+        }
+        Session session = shard(sessionId).get(sessionId);
+        return session != null && session.expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Restore the snapshot (if configured) and start the sweeper and snapshot threads
+     */
+    public static synchronized void start() {
+        if (background != null) {
+            return;
+        }
+        if (!SNAPSHOT_FILE.isEmpty()) {
+            loadSnapshot(Paths.get(SNAPSHOT_FILE));
+        }
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tick = Math.max(1, SWEEP_CYCLE_MILLIS / SHARD_COUNT);
+        background.scheduleWithFixedDelay(SessionManager::sweepNextShard, tick, tick, TimeUnit.MILLISECONDS);
+        if (!SNAPSHOT_FILE.isEmpty()) {
+            background.scheduleWithFixedDelay(SessionManager::writeSnapshotQuietly,
+                SNAPSHOT_SECONDS, SNAPSHOT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stop background work and write a final snapshot
+     */
+    public static synchronized void shutdown() {
+        if (background != null) {
+            background.shutdownNow();
+            background = null;
+        }
+        if (!SNAPSHOT_FILE.isEmpty()) {
+            writeSnapshotQuietly();
+        }
+    }
+
+    public static Stats getStats() {
+        return new Stats((int) active.sum(), activeBytes.sum(), created.sum(), expired.sum(),
+            invalidated.sum(), restored.sum());
+    }
+
+    private static Map<String, Session> shard(String sessionId) {
+        return shards[(sessionId.hashCode() & 0x7fffffff) % SHARD_COUNT];
+    }
+
+    private static void put(String sessionId, Session session) {
+        Session previous = shard(sessionId).put(sessionId, session);
+        if (previous != null) {
+            removed(sessionId, previous);
+        }
+        active.increment();
+        activeBytes.add(estimateBytes(sessionId, session));
+    }
+
+    /**
+     * Take a session that has just left its shard out of the running totals
+     */
+    private static void removed(String sessionId, Session session) {
+        active.decrement();
+        activeBytes.add(-estimateBytes(sessionId, session));
+    }
+
+    /**
+     * Remove expired sessions from one shard; each tick moves on to the next
+     */
+    private static void sweepNextShard() {
+        Map<String, Session> shard = shards[nextShard];
+        nextShard = (nextShard + 1) % SHARD_COUNT;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Session> entry : shard.entrySet()) {
+            // remove(key, value) so a session a lookup has just expired is only counted once
+            if (entry.getValue().expiresAt <= now && shard.remove(entry.getKey(), entry.getValue())) {
+                removed(entry.getKey(), entry.getValue());
+                expired.increment();
+            }
+        }
+    }
+
+    /**
+     * Rough retained size of one session: map node, id string and the record with its strings
+     * Assumes compressed oops (12-byte headers, 4-byte references) and Latin-1 compact strings.
+     */
+    private static long estimateBytes(String sessionId, Session session) {
+        long node = 32;
+        long record = 40;
+        return node + stringBytes(sessionId) + record
+            + stringBytes(session.fullName) + stringBytes(session.email);
+    }
+
+    private static long stringBytes(String s) {
+        if (s == null) {
+            return 0;
+        }
+        // String object (24) + byte[] header (16) + content, padded to 8
+        return 24 + ((16 + s.length() + 7) & ~7);
+    }
+
+    private static void loadSnapshot(Path file) {
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                System.err.println("Ignoring session snapshot with unknown format: " + file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String sessionId = in.readUTF();
+                long userId = in.readLong();
+                String fullName = in.readUTF();
+                String email = in.readUTF();
+                long expiresAt = in.readLong();
+                if (expiresAt > now) {
+                    put(sessionId, new Session(userId, fullName, email, expiresAt));
+                    loaded++;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            System.err.println("Error reading session snapshot " + file + ": " + e.getMessage());
+        }
+        restored.add(loaded);
+        System.out.println("Restored " + loaded + " sessions from " + file);
+    }
+
+    private static void writeSnapshotQuietly() {
+        try {
+            writeSnapshot(Paths.get(SNAPSHOT_FILE));
+        } catch (IOException e) {
+            System.err.println("Error writing session snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write all live sessions to a temp file, then move it over the old snapshot
+     */
+    private static void writeSnapshot(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, "sessions", ".tmp");
+        long now = System.currentTimeMillis();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                // Count is written up front, so collect live sessions first
+                List<Map.Entry<String, Session>> live = new ArrayList<>();
+                for (Map<String, Session> shard : shards) {
+                    for (Map.Entry<String, Session> entry : shard.entrySet()) {
+                        if (entry.getValue().expiresAt > now) {
+                            live.add(entry);
+                        }
+                    }
+                }
+                out.writeInt(live.size());
+                for (Map.Entry<String, Session> entry : live) {
+                    Session session = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(session.userId);
+                    out.writeUTF(session.fullName == null ? "" : session.fullName);
+                    out.writeUTF(session.email == null ? "" : session.email);
+                    out.writeLong(session.expiresAt);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * What the server remembers about a logged-in user
+     */
+    private static final class Session {
+        private final long userId;
+        private final String fullName;
+        private final String email;
+        // Written on every lookup; readers only need to see a recent value
+        private volatile long expiresAt;
+
+        private Session(long userId, String fullName, String email, long expiresAt) {
+            this.userId = userId;
+            this.fullName = fullName;
+            this.email = email;
+            this.expiresAt = expiresAt;
+        }
+
+        private User toUser() {
+            return new User(userId, fullName, email, null, null);
+        }
+    }
+
+    /**
+     * Session store counters and an estimate of its heap footprint
+     */
+    public static class Stats {
+        private final int active;
+        private final long estimatedBytes;
+        private final long created;
+        private final long expired;
+        private final long invalidated;
+        private final long restored;
+
+        Stats(int active, long estimatedBytes, long created, long expired, long invalidated, long restored) {
+            this.active = active;
+            this.estimatedBytes = estimatedBytes;
+            this.created = created;
+            this.expired = expired;
+            this.invalidated = invalidated;
+            this.restored = restored;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        public long getBytesPerSession() {
+            return active == 0 ? 0 : estimatedBytes / active;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getExpired() {
+            return expired;
+        }
+
+        public long getInvalidated() {
+            return invalidated;
+        }
+
+        public long getRestored() {
+            return restored;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "active=" + active +
+                    ", estimatedBytes=" + estimatedBytes +
+                    ", bytesPerSession=" + getBytesPerSession() +
+                    ", created=" + created +
+                    ", expired=" + expired +
+                    ", invalidated=" + invalidated +
+                    ", restored=" + restored +
+                    '}';
+        }
     }
 }
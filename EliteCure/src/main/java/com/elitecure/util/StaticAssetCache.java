@@ -0,0 +1,225 @@
+package com.elitecure.util;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * In-memory copy of the frontend directory
+ * Every file is read once at startup and served from a byte array together
+ * with a precomputed ETag and Last-Modified value. Text files are also
+ * gzipped once at load time so requests never compress. In dev mode a
+ * watcher thread reloads files as they change on disk.
+ */
+public class StaticAssetCache {
+    // IMF-fixdate, e.g. "Tue, 09 Dec 2025 12:45:53 GMT"
+    private static final DateTimeFormatter HTTP_DATE =
+        DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private final Path root;
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    private WatchService watcher;
+
+    public StaticAssetCache(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Read every file under the root directory
+     */
+    public void load() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file)) {
+                    loadFile(file);
+                }
+            }
+        }
+        long bytes = assets.values().stream().mapToLong(a -> a.content.length).sum();
+        System.out.println("Loaded " + assets.size() + " static assets (" + bytes + " bytes) from " + root);
+    }
+
+    /**
+     * Look up an asset by request path, e.g. "/css/style.css"
+     */
+    public Asset get(String path) {
+        return assets.get(path);
+    }
+
+    /**
+     * Watch the root directory and reload files when they change (dev mode)
+     */
+    public void watch() throws IOException {
+        watcher = FileSystems.getDefault().newWatchService();
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) dirs::iterator) {
+                if (Files.isDirectory(dir)) {
+                    register(dir);
+                }
+            }
+        }
+        Thread thread = new Thread(this::watchLoop, "static-asset-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Watching " + root + " for changes");
+    }
+
+    private void register(Path dir) throws IOException {
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    continue;
+                }
+                Path file = dir.resolve((Path) event.context());
+                try {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        assets.remove(toRequestPath(file));
+                    } else if (Files.isDirectory(file)) {
+                        register(file);
+                    } else if (Files.isRegularFile(file)) {
+                        loadFile(file);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error reloading " + file + ": " + e.getMessage());
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private void loadFile(Path file) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        Instant modified = Files.getLastModifiedTime(file).toInstant();
+        String path = toRequestPath(file);
+        assets.put(path, new Asset(content, getContentType(path), modified));
+    }
+
+    private String toRequestPath(Path file) {
+        return "/" + root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /**
+     * Get content type based on file extension
+     */
+    static String getContentType(String path) {
+        if (path.endsWith(".html")) return "text/html; charset=utf-8";
+        if (path.endsWith(".css")) return "text/css; charset=utf-8";
+        if (path.endsWith(".js")) return "application/javascript; charset=utf-8";
+        if (path.endsWith(".json")) return "application/json";
+        if (path.endsWith(".png")) return "image/png";
+        if (path.endsWith(".jpg") || path.endsWith(".jpeg")) return "image/jpeg";
+        if (path.endsWith(".gif")) return "image/gif";
+        if (path.endsWith(".svg")) return "image/svg+xml";
+        if (path.endsWith(".ico")) return "image/x-icon";
+        if (path.endsWith(".mp3")) return "audio/mpeg";
+        return "text/plain";
+    }
+
+    /**
+     * A cached file with its response metadata
+     */
+    public static class Asset {
+        private final byte[] content;
+        private final String contentType;
+        private final String etag;
+        private final byte[] gzipContent;
+        private final String gzipEtag;
+        private final long lastModifiedSeconds;
+        private final String lastModified;
+
+        Asset(byte[] content, String contentType, Instant modified) {
+            this.content = content;
+            this.contentType = contentType;
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            String tag = Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(content.length);
+            this.etag = "\"" + tag + "\"";
+            this.gzipContent = precompress(content, contentType);
+            this.gzipEtag = gzipContent == null ? null : "\"" + tag + "-gz\"";
+            this.lastModifiedSeconds = modified.getEpochSecond();
+            this.lastModified = HTTP_DATE.format(modified);
+        }
+
+        /**
+         * Shared array; callers must not modify it
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * gzip-encoded content, or null when the file isn't worth compressing
+         */
+        public byte[] getGzipContent() {
+            return gzipContent;
+        }
+
+        /**
+         * ETag of the gzip variant (a different representation, so a different tag)
+         */
+        public String getGzipEtag() {
+            return gzipEtag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Whether an If-Modified-Since header value is at or after this asset's modification time
+         */
+        public boolean isNotModifiedSince(String ifModifiedSince) {
+            try {
+                long since = HTTP_DATE.parse(ifModifiedSince, Instant::from).getEpochSecond();
+                return lastModifiedSeconds <= since;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Keep a gzip copy only for text types above the size threshold, and only if it is smaller
+         */
+        private static byte[] precompress(byte[] content, String contentType) {
+            if (!ResponseCompression.isCompressible(contentType) || content.length < ResponseCompression.getMinSize()) {
+                return null;
+            }
+            byte[] gzipped = ResponseCompression.compress(content, ResponseCompression.GZIP);
+            return gzipped.length < content.length ? gzipped : null;
+        }
+    }
+}
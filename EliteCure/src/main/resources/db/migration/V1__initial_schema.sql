@@ -1,36 +1,32 @@
--- Elite Cure Medicine Reminder Database Schema
--- H2 Database SQL Script
-
--- Users table
-CREATE TABLE IF NOT EXISTS users (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT,
-    full_name VARCHAR(255) NOT NULL,
-    email VARCHAR(255) NOT NULL UNIQUE,
-    password_hash VARCHAR(255) NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
-
--- Medicine Reminders table
-CREATE TABLE IF NOT EXISTS reminders (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT,
-    user_id BIGINT NOT NULL,
-    medicine_name VARCHAR(255) NOT NULL,
-    dosage VARCHAR(100) NOT NULL,
-    frequency VARCHAR(100) NOT NULL,
-    start_date DATE NOT NULL,
-    end_date DATE,
-    time_of_day TIME NOT NULL,
-    notes TEXT,
-    status VARCHAR(20) DEFAULT 'ACTIVE',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
-);
-
--- Create index for faster queries
-CREATE INDEX IF NOT EXISTS idx_user_id ON reminders(user_id);
-CREATE INDEX IF NOT EXISTS idx_status ON reminders(status);
-
--- Insert a default test user (password: Test@123)
--- Password hash for 'Test@123' using BCrypt
-INSERT INTO users (full_name, email, password_hash) VALUES 
-('Test User', 'test@elitecure.com', '$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy');
+-- Elite Cure Medicine Reminder Database Schema
+-- Tables as they were created by the original schema.sql; IF NOT EXISTS lets
+-- databases created before migrations existed adopt this version unchanged.
+
+-- Users table
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    full_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Medicine Reminders table
+CREATE TABLE IF NOT EXISTS reminders (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    medicine_name VARCHAR(255) NOT NULL,
+    dosage VARCHAR(100) NOT NULL,
+    frequency VARCHAR(100) NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE,
+    time_of_day TIME NOT NULL,
+    notes TEXT,
+    status VARCHAR(20) DEFAULT 'ACTIVE',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Create index for faster queries
+CREATE INDEX IF NOT EXISTS idx_user_id ON reminders(user_id);
+CREATE INDEX IF NOT EXISTS idx_status ON reminders(status);
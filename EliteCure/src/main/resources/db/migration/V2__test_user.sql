@@ -0,0 +1,5 @@
+-- Default test user (password: Test@123)
+-- Only inserted when missing, so a database that already has the user keeps it unchanged
+INSERT INTO users (full_name, email, password_hash)
+SELECT 'Test User', 'test@elitecure.com', '$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy'
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'test@elitecure.com');
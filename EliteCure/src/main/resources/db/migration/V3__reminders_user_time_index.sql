@@ -0,0 +1,2 @@
+-- Keyset pagination of a user's list: ORDER BY time_of_day, id without a sort
+CREATE INDEX IF NOT EXISTS idx_reminders_user_time ON reminders(user_id, time_of_day, id);
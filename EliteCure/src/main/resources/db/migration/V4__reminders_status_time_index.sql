@@ -0,0 +1,11 @@
+-- Today's reminders: user_id and status are equality filters and rows come back
+-- ordered by time_of_day, so this index serves both the lookup and the order.
+-- The dates stay as per-row filters; a user has few reminders per status.
+CREATE INDEX IF NOT EXISTS idx_reminders_user_status_time ON reminders(user_id, status, time_of_day, id);
+
+-- Three status values: too unselective for lookups, and the startup schedule
+-- load reads most of the table anyway
+DROP INDEX IF EXISTS idx_status;
+
+-- Same column as the index H2 made for the user_id foreign key
+DROP INDEX IF EXISTS idx_user_id;
@@ -0,0 +1,15 @@
+-- Append-only log of what happened to each scheduled dose; rows are never updated.
+-- scheduled_at is the dose time the user responded to, taken_at when they responded.
+CREATE TABLE IF NOT EXISTS dose_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    reminder_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    scheduled_at TIMESTAMP NOT NULL,
+    taken_at TIMESTAMP NOT NULL,
+    action VARCHAR(20) NOT NULL, -- TAKEN or SKIPPED
+    FOREIGN KEY (reminder_id) REFERENCES reminders(id) ON DELETE CASCADE
+);
+
+-- At most one event per dose: a double click, a retry or a second tab must not
+-- log the same scheduled dose twice
+CREATE UNIQUE INDEX IF NOT EXISTS idx_dose_events_dose ON dose_events(reminder_id, scheduled_at);
@@ -0,0 +1,39 @@
+-- Per-user, per-reminder, per-day dose counts behind the adherence report.
+-- taken, late and skipped are recounted from dose_events (one event per dose) as
+-- events are written; scheduled is set to 1 when a dose comes due, or when the
+-- day is closed for reminders that were due but never fired.
+-- No foreign key to reminders, so deleting a reminder keeps its history.
+CREATE TABLE IF NOT EXISTS adherence_daily (
+    user_id BIGINT NOT NULL,
+    dose_date DATE NOT NULL,
+    reminder_id BIGINT NOT NULL,
+    medicine_name VARCHAR(255) NOT NULL,
+    scheduled INT DEFAULT 0 NOT NULL,
+    taken INT DEFAULT 0 NOT NULL,
+    late INT DEFAULT 0 NOT NULL, -- subset of taken
+    skipped INT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (user_id, dose_date, reminder_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Last day whose scheduled doses have been written to adherence_daily
+CREATE TABLE IF NOT EXISTS adherence_watermark (
+    id INT PRIMARY KEY,
+    closed_through DATE NOT NULL
+);
+
+-- Roll up the dose events logged before this table existed, counted the way
+-- AdherenceDAO recounts a row (late = over the default 60 minutes)
+INSERT INTO adherence_daily (user_id, dose_date, reminder_id, medicine_name, taken, late, skipped)
+SELECT r.user_id, CAST(e.scheduled_at AS DATE), r.id, r.medicine_name,
+       COUNT(CASE WHEN e.action = 'TAKEN' THEN 1 END),
+       COUNT(CASE WHEN e.action = 'TAKEN' AND e.taken_at > DATEADD(MINUTE, 60, e.scheduled_at) THEN 1 END),
+       COUNT(CASE WHEN e.action = 'SKIPPED' THEN 1 END)
+FROM dose_events e
+JOIN reminders r ON r.id = e.reminder_id
+GROUP BY r.user_id, CAST(e.scheduled_at AS DATE), r.id, r.medicine_name;
+
+-- Start closing days from the first logged dose, or from today on a new database
+INSERT INTO adherence_watermark (id, closed_through)
+SELECT 1, DATEADD(DAY, -1, LEAST(COALESCE(MIN(CAST(scheduled_at AS DATE)), CURRENT_DATE), CURRENT_DATE))
+FROM dose_events;
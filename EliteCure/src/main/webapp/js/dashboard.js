@@ -11,6 +11,9 @@ if (!sessionId || !user.id) {
 // Global state
 let currentReminders = [];
 let editingReminderId = null;
+let remindersEtag = null;
+// Reminders are fetched page by page; the server caps pages at 500
+const REMINDER_PAGE_SIZE = 200;
 
 // Initialize dashboard
 document.addEventListener('DOMContentLoaded', function() {
@@ -48,20 +51,46 @@ function getGreeting() {
 // Load all reminders
 async function loadReminders() {
     try {
-        const response = await fetch('/api/reminders', {
-            headers: {
-                'Authorization': `Bearer ${sessionId}`
-            }
-        });
+        const headers = {
+            'Authorization': `Bearer ${sessionId}`
+        };
+        if (remindersEtag) {
+            headers['If-None-Match'] = remindersEtag;
+        }
+        
+        // no-store keeps the browser cache out of the way so a 304 reaches this code
+        const response = await fetch(`/api/reminders?limit=${REMINDER_PAGE_SIZE}`, { headers, cache: 'no-store' });
         
         if (response.status === 401) {
             logout();
             return;
         }
         
+        // Nothing changed since the last load (the tag covers every page)
+        if (response.status === 304) {
+            return;
+        }
+        
         const data = await response.json();
-        const reminders = data.success ? data.data : data;
-        currentReminders = Array.isArray(reminders) ? reminders : [];
+        const reminders = [];
+        let page = data;
+        while (true) {
+            if (Array.isArray(page.data)) {
+                reminders.push(...page.data);
+            }
+            if (!page.nextCursor) {
+                break;
+            }
+            const next = await fetch(
+                `/api/reminders?limit=${REMINDER_PAGE_SIZE}&cursor=${encodeURIComponent(page.nextCursor)}`,
+                { headers: { 'Authorization': `Bearer ${sessionId}` }, cache: 'no-store' });
+            if (!next.ok) {
+                throw new Error(`Failed to load reminders page: ${next.status}`);
+            }
+            page = await next.json();
+        }
+        currentReminders = reminders;
+        remindersEtag = response.headers.get('ETag');
         
         updateStats(currentReminders);
         displayReminders(currentReminders);
@@ -2,6 +2,9 @@
 // This script handles real-time reminder notifications with animations and sound
 
 let notificationCheckInterval = null;
+let reminderStream = null;
+let todayEtag = null;
+let todayReminders = [];
 let shownNotifications = new Set();
 let audioContext = null;
 let notificationSound = null;
@@ -13,14 +16,59 @@ document.addEventListener('DOMContentLoaded', function() {
 
 // Initialize the notification system
 function initializeNotificationSystem() {
-    // Check for reminders every 30 seconds
-    checkReminders();
-    notificationCheckInterval = setInterval(checkReminders, 30000);
+    if (window.EventSource) {
+        // The server pushes due reminders, no polling needed
+        openReminderStream();
+    } else {
+        // Fallback for browsers without Server-Sent Events: check every 30 seconds
+        checkReminders();
+        notificationCheckInterval = setInterval(checkReminders, 30000);
+    }
     
     // Initialize audio context on user interaction (required by browsers)
     document.addEventListener('click', initializeAudio, { once: true });
 }
 
+// Open the Server-Sent Events stream of due reminders and reminder changes
+function openReminderStream() {
+    const sessionId = localStorage.getItem('sessionId');
+    if (!sessionId) return;
+    
+    // EventSource cannot send headers, so the session travels as a query parameter.
+    // The browser reconnects on its own and sends Last-Event-ID to replay missed events.
+    reminderStream = new EventSource(`/api/reminders/stream?token=${encodeURIComponent(sessionId)}`);
+    
+    reminderStream.addEventListener('reminder', event => {
+        const reminder = JSON.parse(event.data);
+        const notificationKey = `${reminder.id}-${reminder.dueAt}`;
+        
+        if (!shownNotifications.has(notificationKey)) {
+            showReminderNotification(reminder);
+            shownNotifications.add(notificationKey);
+            
+            // Clear old notifications from the set (keep last 100)
+            if (shownNotifications.size > 100) {
+                const first = shownNotifications.values().next().value;
+                shownNotifications.delete(first);
+            }
+        }
+    });
+    
+    reminderStream.addEventListener('change', () => {
+        // Reload reminders if on dashboard
+        if (typeof loadReminders === 'function') {
+            loadReminders();
+        }
+    });
+    
+    reminderStream.onerror = () => {
+        // A closed stream (e.g. expired session) is not retried by the browser
+        if (reminderStream.readyState === EventSource.CLOSED) {
+            console.warn('Reminder stream closed');
+        }
+    };
+}
+
 // Initialize Web Audio API
 function initializeAudio() {
     if (!audioContext) {
@@ -39,11 +87,20 @@ async function checkReminders() {
     if (!sessionId) return;
     
     try {
-        const response = await fetch('/api/reminders/today', {
-            headers: {
-                'Authorization': `Bearer ${sessionId}`
-            }
-        });
+        const headers = {
+            'Authorization': `Bearer ${sessionId}`
+        };
+        if (todayEtag) {
+            headers['If-None-Match'] = todayEtag;
+        }
+        
+        const response = await fetch('/api/reminders/today', { headers, cache: 'no-store' });
+        
+        // 304 means the list is unchanged, so reuse the previous one
+        if (response.status === 304) {
+            checkDueReminders(todayReminders);
+            return;
+        }
         
         if (!response.ok) return;
         
@@ -52,33 +109,40 @@ async function checkReminders() {
         
         if (!Array.isArray(reminders)) return;
         
-        const now = new Date();
-        const currentTime = `${String(now.getHours()).padStart(2, '0')}:${String(now.getMinutes()).padStart(2, '0')}`;
-        
-        reminders.forEach(reminder => {
-            // Check if this reminder is due now (within the current minute)
-            if (reminder.timeOfDay && reminder.timeOfDay.substring(0, 5) === currentTime) {
-                const notificationKey = `${reminder.id}-${currentTime}`;
-                
-                // Only show if we haven't shown this notification in this minute
-                if (!shownNotifications.has(notificationKey)) {
-                    showReminderNotification(reminder);
-                    shownNotifications.add(notificationKey);
-                    
-                    // Clear old notifications from the set (keep last 100)
-                    if (shownNotifications.size > 100) {
-                        const first = shownNotifications.values().next().value;
-                        shownNotifications.delete(first);
-                    }
-                }
-            }
-        });
+        todayReminders = reminders;
+        todayEtag = response.headers.get('ETag');
+        checkDueReminders(reminders);
         
     } catch (error) {
         console.error('Error checking reminders:', error);
     }
 }
 
+// Show notifications for reminders due in the current minute
+function checkDueReminders(reminders) {
+    const now = new Date();
+    const currentTime = `${String(now.getHours()).padStart(2, '0')}:${String(now.getMinutes()).padStart(2, '0')}`;
+    
+    reminders.forEach(reminder => {
+        // Check if this reminder is due now (within the current minute)
+        if (reminder.timeOfDay && reminder.timeOfDay.substring(0, 5) === currentTime) {
+            const notificationKey = `${reminder.id}-${currentTime}`;
+            
+            // Only show if we haven't shown this notification in this minute
+            if (!shownNotifications.has(notificationKey)) {
+                showReminderNotification(reminder);
+                shownNotifications.add(notificationKey);
+                
+                // Clear old notifications from the set (keep last 100)
+                if (shownNotifications.size > 100) {
+                    const first = shownNotifications.values().next().value;
+                    shownNotifications.delete(first);
+                }
+            }
+        }
+    });
+}
+
 // Show reminder notification with animation
 function showReminderNotification(reminder) {
     // Play notification sound
@@ -301,4 +365,7 @@ window.addEventListener('beforeunload', function() {
     if (notificationCheckInterval) {
         clearInterval(notificationCheckInterval);
     }
+    if (reminderStream) {
+        reminderStream.close();
+    }
 });